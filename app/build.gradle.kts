@@ -42,6 +42,10 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // Model classes reference android.os.Parcel; JVM tests never call into it
+        unitTests.isReturnDefaultValues = true
+    }
     buildTypes {
         release {
             isShrinkResources = true
@@ -80,4 +84,7 @@ dependencies {
 
     implementation("com.squareup.moshi:moshi:1.15.2")
     implementation("com.squareup.okhttp3:okhttp:5.4.0")
+
+    testImplementation("junit:junit:4.13.2")
+    testImplementation("com.squareup.okhttp3:mockwebserver:5.4.0")
 }
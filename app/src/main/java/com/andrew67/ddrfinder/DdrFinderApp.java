@@ -22,12 +22,14 @@
  */
 package com.andrew67.ddrfinder;
 
+import android.app.ActivityManager;
 import android.app.Application;
 import android.content.SharedPreferences;
 import androidx.preference.PreferenceManager;
 import androidx.appcompat.app.AppCompatDelegate;
 
 import com.andrew67.ddrfinder.activity.SettingsActivity;
+import com.andrew67.ddrfinder.arcades.util.CachedMapLoader;
 import com.andrew67.ddrfinder.util.ThemeUtil;
 
 public class DdrFinderApp extends Application {
@@ -42,6 +44,16 @@ public class DdrFinderApp extends Application {
         // Auto/Light/Dark theme preference is not persisted automatically across process restarts
         final String theme = sharedPref.getString(SettingsActivity.KEY_PREF_THEME, "auto");
         AppCompatDelegate.setDefaultNightMode(ThemeUtil.getAppCompatDelegateMode(theme));
+
+        // Keep the in-memory arcade cache smaller on low-RAM devices
+        final CachedMapLoader cachedMapLoader = CachedMapLoader.getInstance();
+        final ActivityManager activityManager = getSystemService(ActivityManager.class);
+        if (activityManager != null && activityManager.isLowRamDevice()) {
+            cachedMapLoader.setMaxCachedLocations(CachedMapLoader.LOW_RAM_MAX_CACHED_LOCATIONS);
+        }
+
+        // Start loading previously fetched arcades from disk while the map initializes
+        cachedMapLoader.attachDiskCache(this);
     }
 
 }
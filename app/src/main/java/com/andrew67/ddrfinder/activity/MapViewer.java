@@ -34,6 +34,9 @@ import com.andrew67.ddrfinder.arcades.model.DataSource;
 import com.andrew67.ddrfinder.arcades.ui.AppDiscontinuedDialogFragment;
 import com.andrew67.ddrfinder.arcades.vm.ArcadesModel;
 import com.andrew67.ddrfinder.arcades.ui.LocationClusterRenderer;
+import com.andrew67.ddrfinder.arcades.util.CachedMapLoader;
+import com.andrew67.ddrfinder.arcades.util.TilePrefetcher;
+import com.andrew67.ddrfinder.arcades.util.ViewportLoadScheduler;
 import com.andrew67.ddrfinder.arcades.vm.SelectedLocationModel;
 import com.andrew67.ddrfinder.mylocation.MyLocationModel;
 import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
@@ -106,6 +109,8 @@ public class MapViewer extends AppCompatActivity implements OnMapReadyCallback {
     private final String KEY_SELECTED_ARCADE = "selectedArcade";
     /** savedInstanceState key for the selected arcade location's data source */
     private final String KEY_SELECTED_ARCADE_SOURCE = "selectedArcadeSource";
+    /** savedInstanceState key for the bounds of the latest arcade locations request */
+    private final String KEY_REQUESTED_BOUNDS = "requestedBounds";
 
     // Map
     private GoogleMap mMap;
@@ -123,15 +128,22 @@ public class MapViewer extends AppCompatActivity implements OnMapReadyCallback {
     // Helpers
     private SharedPreferences sharedPref;
     private SharedPreferences state;
+    private TilePrefetcher tilePrefetcher;
+    /** Coalesces bursts of camera idle events into one load of where the camera ended up */
+    private final ViewportLoadScheduler viewportLoadScheduler =
+            new ViewportLoadScheduler(() -> updateMap(false));
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         SplashScreen.installSplashScreen(this);
         super.onCreate(savedInstanceState);
+        // Connect to the server while the map initializes, so the first locations arrive sooner
+        CachedMapLoader.getInstance().warmUpConnection();
 
         PreferenceManager.setDefaultValues(this, R.xml.preferences, true);
         sharedPref = PreferenceManager.getDefaultSharedPreferences(this);
         state = getSharedPreferences("state", MODE_PRIVATE);
+        tilePrefetcher = new TilePrefetcher(this);
 
         setContentView(R.layout.map_viewer);
         final Toolbar toolbar = findViewById(R.id.toolbar);
@@ -225,6 +237,19 @@ public class MapViewer extends AppCompatActivity implements OnMapReadyCallback {
                 (SupportMapFragment) getSupportFragmentManager().findFragmentById(R.id.map);
         if (supportMapFragment != null) supportMapFragment.getMapAsync(this);
 
+        // Repopulate the map across process death from the disk cache, without waiting on the
+        // map to lay out. The model still holds the arcades if only the activity was recreated
+        if (savedInstanceState != null && arcadesModel.getArcadeLocations().getValue() == null) {
+            final LatLngBounds requestedBounds =
+                    savedInstanceState.getParcelable(KEY_REQUESTED_BOUNDS);
+            if (requestedBounds != null) {
+                final boolean hasDDROnly = sharedPref.getBoolean(
+                        SettingsActivity.KEY_PREF_FILTER_DDR_ONLY, false);
+                final String datasrc = sharedPref.getString(SettingsActivity.KEY_PREF_API_SRC, "ziv");
+                arcadesModel.requestLocations(requestedBounds, datasrc, hasDDROnly, false);
+            }
+        }
+
         // Restore selected arcade location across process death
         if (savedInstanceState != null) {
             final ArcadeLocation selectedLocation = savedInstanceState
@@ -273,6 +298,10 @@ public class MapViewer extends AppCompatActivity implements OnMapReadyCallback {
             outState.putParcelable(KEY_SELECTED_ARCADE, selectedArcade.arcadeLocation);
             outState.putParcelable(KEY_SELECTED_ARCADE_SOURCE, selectedArcade.dataSource);
         }
+
+        // Persist the area being shown across process death; its arcades are in the disk cache
+        final LatLngBounds requestedBounds = arcadesModel.getRequestedBounds();
+        if (requestedBounds != null) outState.putParcelable(KEY_REQUESTED_BOUNDS, requestedBounds);
     }
 
     /** Stores the savedInstanceState bundle received in onCreate, to be used by onMapReady */
@@ -365,6 +394,7 @@ public class MapViewer extends AppCompatActivity implements OnMapReadyCallback {
         mClusterManager.setOnClusterItemClickListener(onClusterItemClickListener);
 
         mMap.setOnCameraMoveStartedListener(cameraMoveStartedListener);
+        mMap.setOnCameraMoveListener(cameraMoveListener);
         mMap.setOnCameraIdleListener(cameraIdleListener);
         mMap.setOnMapClickListener(onMapClickListener);
 
@@ -399,7 +429,16 @@ public class MapViewer extends AppCompatActivity implements OnMapReadyCallback {
         saveCameraToState(currentPosition);
 
         mClusterManager.onCameraIdle();
-        updateMap(false);
+        tilePrefetcher.onCameraIdle();
+        viewportLoadScheduler.onCameraIdle();
+    };
+
+    /**
+     * Listener class that prefetches arcades ahead of the camera while the map is moving.
+     */
+    private final GoogleMap.OnCameraMoveListener cameraMoveListener = () -> {
+        final String datasrc = sharedPref.getString(SettingsActivity.KEY_PREF_API_SRC, "ziv");
+        tilePrefetcher.onCameraMove(mMap, datasrc);
     };
 
     /**
@@ -485,12 +524,15 @@ public class MapViewer extends AppCompatActivity implements OnMapReadyCallback {
      * @param force Whether to ignore already loaded areas and load them again
      */
     private void updateMap(boolean force) {
+        // Any load scheduled for camera idle would only repeat this one
+        viewportLoadScheduler.cancel();
         final LatLngBounds box = mMap.getProjection().getVisibleRegion().latLngBounds;
 
         // During app startup, an unnecessary request is being made for (0,0), (0,0)
         // Let's suppress it here (saves network request and error message)
         final LatLng zeroZero = new LatLng(0, 0);
         if (box.northeast.equals(zeroZero) && box.southwest.equals(zeroZero)) return;
+        viewportLoadScheduler.onLoad();
 
         final boolean hasDDROnly = sharedPref.getBoolean(SettingsActivity.KEY_PREF_FILTER_DDR_ONLY, false);
         final String datasrc = sharedPref.getString(SettingsActivity.KEY_PREF_API_SRC, "ziv");
@@ -626,6 +668,13 @@ public class MapViewer extends AppCompatActivity implements OnMapReadyCallback {
         currentAppLink.sourceShortName(datasrc);
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // onResume loads the viewport again anyway
+        viewportLoadScheduler.cancel();
+    }
+
     @Override
     public void onRequestPermissionsResult(int requestCode,
                                            @NonNull String[] permissions,
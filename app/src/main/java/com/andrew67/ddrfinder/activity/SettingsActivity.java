@@ -28,6 +28,8 @@ package com.andrew67.ddrfinder.activity;
 
 import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.text.format.Formatter;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
@@ -35,12 +37,14 @@ import androidx.core.os.LocaleListCompat;
 import androidx.preference.ListPreference;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
+import androidx.preference.SwitchPreference;
 import androidx.appcompat.widget.Toolbar;
 
 import android.view.MenuItem;
 
 import com.andrew67.ddrfinder.BuildConfig;
 import com.andrew67.ddrfinder.R;
+import com.andrew67.ddrfinder.arcades.util.CachedMapLoader;
 import com.andrew67.ddrfinder.util.CustomTabsUtil;
 import com.andrew67.ddrfinder.util.LocaleUtil;
 import com.andrew67.ddrfinder.util.ThemeUtil;
@@ -53,6 +57,7 @@ public class SettingsActivity extends AppCompatActivity {
     public static final String KEY_PREF_FILTER_DDR_ONLY = "filter_ddr_only";
     public static final String KEY_PREF_API_SRC = "api_src";
     public static final String API_SRC_CUSTOM = "custom";
+    public static final String KEY_PREF_OFFLINE_PACK = "offline_pack";
 
     public static final String KEY_PREF_THEME = "theme";
     public static final String KEY_PREF_LOCALE = "locale";
@@ -91,7 +96,10 @@ public class SettingsActivity extends AppCompatActivity {
                 .toString();
     }
 
-    public static class SettingsFragment extends PreferenceFragmentCompat {
+    public static class SettingsFragment extends PreferenceFragmentCompat
+            implements CachedMapLoader.OfflinePackListener {
+
+        private boolean offlinePackFailed = false;
 
         @Override
         public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
@@ -102,6 +110,42 @@ public class SettingsActivity extends AppCompatActivity {
             final Preference srcPref = findPreference(KEY_PREF_API_SRC);
             if (srcPref != null) {
                 srcPref.setSummaryProvider(ListPreference.SimpleSummaryProvider.getInstance());
+                // Keep the offline pack matching the data source in use
+                srcPref.setOnPreferenceChangeListener((preference, newValue) -> {
+                    final SwitchPreference offlinePackPref = findPreference(KEY_PREF_OFFLINE_PACK);
+                    if (offlinePackPref != null && offlinePackPref.isChecked()) {
+                        final CachedMapLoader cachedMapLoader = CachedMapLoader.getInstance();
+                        cachedMapLoader.deleteOfflinePacks();
+                        cachedMapLoader.downloadOfflinePack(newValue.toString(), this);
+                        offlinePackFailed = false;
+                        updateOfflinePackSummary(true);
+                    }
+                    return true;
+                });
+            }
+
+            // Download or delete the offline pack when toggled, showing its progress and size
+            final SwitchPreference offlinePackPref = findPreference(KEY_PREF_OFFLINE_PACK);
+            if (offlinePackPref != null) {
+                offlinePackPref.setOnPreferenceChangeListener((preference, newValue) -> {
+                    final CachedMapLoader cachedMapLoader = CachedMapLoader.getInstance();
+                    offlinePackFailed = false;
+                    if (Boolean.TRUE.equals(newValue)) {
+                        cachedMapLoader.downloadOfflinePack(getDataSrc(), this);
+                    } else {
+                        cachedMapLoader.deleteOfflinePacks();
+                    }
+                    updateOfflinePackSummary(Boolean.TRUE.equals(newValue));
+                    return true;
+                });
+                // Resume a download the process died during, which left no pack behind,
+                // or follow one still running since this screen was recreated
+                final CachedMapLoader cachedMapLoader = CachedMapLoader.getInstance();
+                if (offlinePackPref.isChecked() &&
+                        !cachedMapLoader.hasOfflinePack(getDataSrc())) {
+                    cachedMapLoader.downloadOfflinePack(getDataSrc(), this);
+                }
+                updateOfflinePackSummary(offlinePackPref.isChecked());
             }
 
             // Set Theme preference into OS when set
@@ -169,5 +213,51 @@ public class SettingsActivity extends AppCompatActivity {
                 });
             }
         }
+
+        @Override
+        public void onDestroy() {
+            // Downloads outlive this screen, and must not keep it from being collected
+            CachedMapLoader.getInstance().removeOfflinePackListener(this);
+            super.onDestroy();
+        }
+
+        @Override
+        public void onOfflinePackUpdated(@NonNull String dataSrc, boolean success) {
+            if (!isAdded()) return;
+            final SwitchPreference offlinePackPref = findPreference(KEY_PREF_OFFLINE_PACK);
+            if (offlinePackPref == null) return;
+            if (!success) {
+                offlinePackFailed = true;
+                offlinePackPref.setChecked(false);
+                CachedMapLoader.getInstance().deleteOfflinePacks();
+            }
+            updateOfflinePackSummary(offlinePackPref.isChecked());
+        }
+
+        @NonNull
+        private String getDataSrc() {
+            final SharedPreferences sharedPref = getPreferenceScreen().getSharedPreferences();
+            final String defaultSrc = getString(R.string.settings_src_default);
+            return sharedPref != null ?
+                    sharedPref.getString(KEY_PREF_API_SRC, defaultSrc) : defaultSrc;
+        }
+
+        private void updateOfflinePackSummary(boolean enabled) {
+            final Preference offlinePackPref = findPreference(KEY_PREF_OFFLINE_PACK);
+            if (offlinePackPref == null) return;
+
+            final CachedMapLoader cachedMapLoader = CachedMapLoader.getInstance();
+            final long size = cachedMapLoader.getOfflinePackSize();
+            if (offlinePackFailed) {
+                offlinePackPref.setSummary(R.string.settings_offline_pack_failed);
+            } else if (enabled && cachedMapLoader.isDownloadingOfflinePack()) {
+                offlinePackPref.setSummary(R.string.settings_offline_pack_downloading);
+            } else if (enabled && size > 0) {
+                offlinePackPref.setSummary(getString(R.string.settings_offline_pack_size,
+                        Formatter.formatShortFileSize(requireContext(), size)));
+            } else {
+                offlinePackPref.setSummary(R.string.settings_offline_pack_summary);
+            }
+        }
     }
 }
@@ -41,9 +41,12 @@ public final class ApiResult {
     private List<DataSource> sources;
     private List<ArcadeLocation> locations;
     private Deprecations deprecations;
+    private Long dataVersion;
+    private Boolean delta;
+    private List<Integer> removed;
     private transient LatLngBounds bounds; // non-API
-
-    private ApiResult() { }
+    private transient String dataSrc; // non-API
+    private transient long fetchedAt; // non-API
 
     public ApiResult(List<DataSource> sources,
                       List<ArcadeLocation> locations,
@@ -55,6 +58,27 @@ public final class ApiResult {
         this.bounds = bounds;
     }
 
+    /**
+     * Builds a result from fields parsed one by one, e.g. by a streaming parser.
+     */
+    public ApiResult(String error,
+                     Integer errorCode,
+                     List<DataSource> sources,
+                     List<ArcadeLocation> locations,
+                     Deprecations deprecations,
+                     Long dataVersion,
+                     Boolean delta,
+                     List<Integer> removed) {
+        this.error = error;
+        this.errorCode = errorCode;
+        this.sources = sources;
+        this.locations = locations;
+        this.deprecations = deprecations;
+        this.dataVersion = dataVersion;
+        this.delta = delta;
+        this.removed = removed;
+    }
+
     /**
      * Returns the error code from the API.
      * @return Error code.
@@ -96,6 +120,39 @@ public final class ApiResult {
         return deprecations;
     }
 
+    /**
+     * Returns the version of the data source's dataset this result reflects,
+     * or 0 if the server did not report one.
+     */
+    public long getDataVersion() {
+        return (dataVersion == null) ? 0 : dataVersion;
+    }
+
+    /**
+     * Set the dataset version, e.g. when restoring a result saved locally.
+     */
+    public void setDataVersion(long dataVersion) {
+        this.dataVersion = dataVersion;
+    }
+
+    /**
+     * Whether this result only holds the changes since the version given in the request:
+     * locations added or changed, and the ids of those removed.
+     * Servers that do not support deltas always send complete results.
+     */
+    public boolean isDelta() {
+        return delta != null && delta;
+    }
+
+    /**
+     * Returns the ids of the locations removed, for a delta result.
+     */
+    @NonNull
+    public List<Integer> getRemoved() {
+        if (removed != null) return removed;
+        else return Collections.emptyList();
+    }
+
     /**
      * (non-API) Set the latitude/longitude bounds this result belongs to.
      * This field should only be set once.
@@ -110,4 +167,34 @@ public final class ApiResult {
     public LatLngBounds getBounds() {
         return bounds;
     }
+
+    /**
+     * (non-API) Set the data source that was requested for this result.
+     * This field should only be set once.
+     */
+    public void setDataSrc(String dataSrc) {
+        this.dataSrc = dataSrc;
+    }
+
+    /**
+     * (non-API) Get the data source that was requested for this result.
+     */
+    public String getDataSrc() {
+        return dataSrc;
+    }
+
+    /**
+     * (non-API) Set the time this result was fetched from the server, in epoch milliseconds.
+     * This field should only be set once.
+     */
+    public void setFetchedAt(long fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * (non-API) Get the time this result was fetched from the server, in epoch milliseconds.
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
 }
@@ -42,10 +42,41 @@ public final class ArcadeLocation implements Parcelable, ClusterItem {
     private String city;
     private double lat;
     private double lng;
-    private Integer hasDDR; // optional; interface should be Boolean, but this gets fed to us as "0" or "1" (or null!)
+    private boolean hasDDR; // fed to us as "0" or "1" (or null!), see ApiJsonAdapters
+    /** Source of the sid, name and city until each is first read; null if created decoded */
+    private StringSource strings;
+    private int sidReference = StringSource.NULL;
+    private int nameReference = StringSource.NULL;
+    private int cityReference = StringSource.NULL;
+
+    /**
+     * Create an arcade location from API or previously stored fields (e.g. the on-disk cache).
+     */
+    public ArcadeLocation(int id, String src, String sid, String name, String city,
+                          double lat, double lng, boolean hasDDR) {
+        this.id = id;
+        this.src = src;
+        this.sid = sid;
+        this.name = name;
+        this.city = city;
+        this.lat = lat;
+        this.lng = lng;
+        this.hasDDR = hasDDR;
+    }
 
-    @SuppressWarnings("unused")
-    private ArcadeLocation() { }
+    /**
+     * Create an arcade location whose sid, name and city are references into the given
+     * strings, each decoded the first time it is read.
+     */
+    public ArcadeLocation(int id, String src, @NonNull StringSource strings,
+                          int sidReference, int nameReference, int cityReference,
+                          double lat, double lng, boolean hasDDR) {
+        this(id, src, null, null, null, lat, lng, hasDDR);
+        this.strings = strings;
+        this.sidReference = sidReference;
+        this.nameReference = nameReference;
+        this.cityReference = cityReference;
+    }
 
     public int getId() {
         return id;
@@ -56,10 +87,13 @@ public final class ArcadeLocation implements Parcelable, ClusterItem {
     }
 
     public String getSid() {
+        // Racing threads can only both decode the same immutable string
+        if (sid == null && sidReference != StringSource.NULL) sid = strings.get(sidReference);
         return sid;
     }
 
     public String getName() {
+        if (name == null && nameReference != StringSource.NULL) name = strings.get(nameReference);
         return name;
     }
 
@@ -77,9 +111,31 @@ public final class ArcadeLocation implements Parcelable, ClusterItem {
     }
 
     public String getCity() {
+        if (city == null && cityReference != StringSource.NULL) city = strings.get(cityReference);
         return city;
     }
 
+    /**
+     * Returns the source the sid, name and city are references into,
+     * or null if the location was created with them decoded.
+     */
+    @Nullable
+    public StringSource getStringSource() {
+        return strings;
+    }
+
+    public int getSidReference() {
+        return sidReference;
+    }
+
+    public int getNameReference() {
+        return nameReference;
+    }
+
+    public int getCityReference() {
+        return cityReference;
+    }
+
     private LatLng position = null;
     @Override
     @NonNull
@@ -94,7 +150,7 @@ public final class ArcadeLocation implements Parcelable, ClusterItem {
     }
 
     public boolean hasDDR() {
-        return Integer.valueOf(1).equals(hasDDR);
+        return hasDDR;
     }
 
     @Override
@@ -116,14 +172,12 @@ public final class ArcadeLocation implements Parcelable, ClusterItem {
     public void writeToParcel(Parcel dest, int flags) {
         dest.writeInt(id);
         dest.writeString(src);
-        dest.writeString(sid);
-        dest.writeString(name);
-        dest.writeString(city);
+        dest.writeString(getSid());
+        dest.writeString(getName());
+        dest.writeString(getCity());
         dest.writeDouble(lat);
         dest.writeDouble(lng);
-        // Accounts for hasDDR = null
-        if (hasDDR()) dest.writeInt(1);
-        else dest.writeInt(0);
+        dest.writeInt(hasDDR ? 1 : 0);
     }
 
     private ArcadeLocation(Parcel in) {
@@ -134,7 +188,7 @@ public final class ArcadeLocation implements Parcelable, ClusterItem {
         this.city = in.readString();
         this.lat = in.readDouble();
         this.lng = in.readDouble();
-        this.hasDDR = in.readInt();
+        this.hasDDR = in.readInt() == 1;
     }
 
     public static final Parcelable.Creator<ArcadeLocation> CREATOR
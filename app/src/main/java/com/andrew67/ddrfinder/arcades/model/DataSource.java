@@ -40,7 +40,15 @@ public final class DataSource implements Parcelable {
     private String mInfoURL;
     private boolean hasDDR;
 
-    private DataSource() { }
+    /**
+     * Create a data source from API or previously stored fields (e.g. the on-disk cache).
+     */
+    public DataSource(String shortName, String name, String infoURL, boolean hasDDR) {
+        this.shortName = shortName;
+        this.name = name;
+        this.mInfoURL = infoURL;
+        this.hasDDR = hasDDR;
+    }
 
     /**
      * Get the key/shortname of the data source, e.g. "ziv"
@@ -119,11 +127,7 @@ public final class DataSource implements Parcelable {
      * @return Fallback data source for locations.
      */
     public static DataSource getFallback() {
-        DataSource src = new DataSource();
-        src.shortName = "fallback";
-        src.name = "Source Website";
-        src.mInfoURL = BuildConfig.FALLBACK_INFO_URL;
-        src.hasDDR = false;
-        return src;
+        return new DataSource("fallback", "Source Website",
+                BuildConfig.FALLBACK_INFO_URL, false);
     }
 }
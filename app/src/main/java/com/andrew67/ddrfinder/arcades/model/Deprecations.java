@@ -32,8 +32,12 @@ import android.os.Parcelable;
 public final class Deprecations implements Parcelable {
     private int googlePlay;
 
-    @SuppressWarnings("unused")
-    private Deprecations() { }
+    /**
+     * Create deprecation information from an API or previously stored value (e.g. the on-disk cache).
+     */
+    public Deprecations(int googlePlay) {
+        this.googlePlay = googlePlay;
+    }
 
     public int getGooglePlay() {
         return googlePlay;
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Strings kept in their encoded form, e.g. the string table of a binary API result, which
+ * an {@link ArcadeLocation} refers to by reference and only decodes when read.
+ * References start at 1, with {@link #NULL} standing for null.
+ * Implementations must be safe to read from any thread.
+ */
+public interface StringSource {
+    int NULL = 0;
+
+    /**
+     * Returns the string with the given reference, or null for {@link #NULL}.
+     */
+    @Nullable
+    String get(int reference);
+
+    /**
+     * Whether the string with the given reference equals the one with the other reference in
+     * the other source, comparing encoded forms where possible instead of decoding them.
+     */
+    boolean equals(int reference, @NonNull StringSource other, int otherReference);
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.DataSource;
+import com.andrew67.ddrfinder.arcades.model.Deprecations;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON adapters for the API model classes, written out by hand so that parsing needs no
+ * reflection: no adapter has to be built at runtime on first use, and the model classes need not
+ * be kept as-is for it, so they can be shrunk and optimized like any other code.
+ * Field names follow the API docs, see
+ * <a href="https://github.com/Andrew67/ddr-finder/blob/master/docs/API.md">API docs</a>.
+ * Unknown fields are skipped.
+ */
+final class ApiJsonAdapters {
+    private ApiJsonAdapters() { }
+
+    /**
+     * Returns a new arcade location adapter, to be used for the locations of a single response.
+     * The source, name and city of each location are deduplicated against those already read,
+     * so a response holds one copy of each value however many of its arcades repeat it.
+     */
+    @NonNull
+    static JsonAdapter<ArcadeLocation> newLocationAdapter() {
+        return new LocationAdapter();
+    }
+
+    private static final class LocationAdapter extends JsonAdapter<ArcadeLocation> {
+        private static final JsonReader.Options fields = JsonReader.Options.of(
+                "id", "src", "sid", "name", "city", "lat", "lng", "hasDDR");
+        private final Map<String, String> seen = new HashMap<>();
+
+        @Nullable
+        @Override
+        public ArcadeLocation fromJson(@NonNull JsonReader reader) throws IOException {
+            if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+            int id = 0;
+            String src = null;
+            String sid = null;
+            String name = null;
+            String city = null;
+            double lat = 0;
+            double lng = 0;
+            boolean hasDDR = false;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(fields)) {
+                    case 0: id = reader.nextInt(); break;
+                    case 1: src = nextShared(reader); break;
+                    case 2: sid = nextString(reader); break;
+                    case 3: name = nextShared(reader); break;
+                    case 4: city = nextShared(reader); break;
+                    case 5: lat = reader.nextDouble(); break;
+                    case 6: lng = reader.nextDouble(); break;
+                    case 7: hasDDR = nextFlag(reader); break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return new ArcadeLocation(id, src, sid, name, city, lat, lng, hasDDR);
+        }
+
+        @Override
+        public void toJson(@NonNull JsonWriter writer, @Nullable ArcadeLocation value)
+                throws IOException {
+            if (value == null) {
+                writer.nullValue();
+                return;
+            }
+            writer.beginObject();
+            writer.name("id").value(value.getId());
+            writer.name("src").value(value.getSrc());
+            writer.name("sid").value(value.getSid());
+            writer.name("name").value(value.getName());
+            writer.name("city").value(value.getCity());
+            writer.name("lat").value(value.getPosition().latitude);
+            writer.name("lng").value(value.getPosition().longitude);
+            writer.name("hasDDR").value(value.hasDDR() ? "1" : "0");
+            writer.endObject();
+        }
+
+        @Nullable
+        private String nextShared(@NonNull JsonReader reader) throws IOException {
+            final String value = nextString(reader);
+            if (value == null) return null;
+            final String previous = seen.putIfAbsent(value, value);
+            return (previous != null) ? previous : value;
+        }
+    }
+
+    /** Info URLs for mobile (mInfoURL) are used; those for desktop (infoURL) are skipped */
+    static final JsonAdapter<DataSource> SOURCE = new JsonAdapter<>() {
+        private final JsonReader.Options fields = JsonReader.Options.of(
+                "shortName", "name", "mInfoURL", "hasDDR");
+
+        @Nullable
+        @Override
+        public DataSource fromJson(@NonNull JsonReader reader) throws IOException {
+            if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+            String shortName = null;
+            String name = null;
+            String infoURL = null;
+            boolean hasDDR = false;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.selectName(fields)) {
+                    case 0: shortName = nextString(reader); break;
+                    case 1: name = nextString(reader); break;
+                    case 2: infoURL = nextString(reader); break;
+                    case 3: hasDDR = nextFlag(reader); break;
+                    default:
+                        reader.skipName();
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            if (shortName == null) throw new JsonDataException("Data source without shortName");
+            return new DataSource(shortName, name, infoURL, hasDDR);
+        }
+
+        @Override
+        public void toJson(@NonNull JsonWriter writer, @Nullable DataSource value)
+                throws IOException {
+            if (value == null) {
+                writer.nullValue();
+                return;
+            }
+            writer.beginObject();
+            writer.name("shortName").value(value.getShortName());
+            writer.name("name").value(value.getName());
+            writer.name("mInfoURL").value(value.getInfoURL());
+            writer.name("hasDDR").value(value.hasDDR());
+            writer.endObject();
+        }
+    };
+
+    static final JsonAdapter<Deprecations> DEPRECATIONS = new JsonAdapter<>() {
+        private final JsonReader.Options fields = JsonReader.Options.of("googlePlay");
+
+        @Nullable
+        @Override
+        public Deprecations fromJson(@NonNull JsonReader reader) throws IOException {
+            if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+            int googlePlay = 0;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.selectName(fields) == 0) {
+                    googlePlay = reader.nextInt();
+                } else {
+                    reader.skipName();
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new Deprecations(googlePlay);
+        }
+
+        @Override
+        public void toJson(@NonNull JsonWriter writer, @Nullable Deprecations value)
+                throws IOException {
+            if (value == null) {
+                writer.nullValue();
+                return;
+            }
+            writer.beginObject();
+            writer.name("googlePlay").value(value.getGooglePlay());
+            writer.endObject();
+        }
+    };
+
+    /**
+     * Read an array of data sources, or null.
+     */
+    @Nullable
+    static List<DataSource> nextSources(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        final List<DataSource> sources = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) sources.add(SOURCE.fromJson(reader));
+        reader.endArray();
+        return sources;
+    }
+
+    /**
+     * Read an array of ids, or null.
+     */
+    @Nullable
+    static List<Integer> nextIds(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        final List<Integer> ids = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) ids.add(reader.nextInt());
+        reader.endArray();
+        return ids;
+    }
+
+    @Nullable
+    static String nextString(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextString();
+    }
+
+    @Nullable
+    static Integer nextInteger(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextInt();
+    }
+
+    @Nullable
+    static Long nextLong(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextLong();
+    }
+
+    @Nullable
+    static Boolean nextBoolean(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonReader.Token.NULL) return reader.nextNull();
+        return reader.nextBoolean();
+    }
+
+    /**
+     * Read a flag that the API may send as a boolean, as 0/1, as "0"/"1", or as null (false).
+     */
+    static boolean nextFlag(@NonNull JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return false;
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case STRING:
+                return "1".equals(reader.nextString());
+            default:
+                return reader.nextInt() == 1;
+        }
+    }
+}
@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.DataSource;
+import com.andrew67.ddrfinder.arcades.model.Deprecations;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Persists loaded API results to a file, so that previously viewed areas can be shown again
+ * after a cold start or process death without a network request.
+ *
+ * <p>The file is a header (magic, format version) followed by append-only records, each being
+ * a length prefix and one encoded {@link ApiResult}. A torn record at the end of the file (e.g.
+ * the process was killed mid-write) is dropped on the next load. Files with an unknown magic or
+ * version are discarded, so bumping {@link #FORMAT_VERSION} is enough to change the encoding.
+ * Loading only reads the fixed fields at the start of each record, to build an {@link Index} of
+ * the newest record per tile; the locations of a record are decoded each time a tile is asked for.
+ *
+ * <p>All methods perform disk I/O and must be called from a background thread.
+ */
+class ArcadeDiskCache {
+    private static final String TAG = "ArcadeDiskCache";
+
+    private static final int MAGIC = 0x44445243; // "DDRC"
+    private static final int FORMAT_VERSION = 4;
+    private static final int HEADER_SIZE = 8;
+
+    /** Once the file grows past this size, older records are trimmed away */
+    private static final long MAX_FILE_SIZE = 4 * 1024 * 1024;
+
+    private final File file;
+
+    ArcadeDiskCache(@NonNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * Index the intact records of the file by the tiles they cover, without decoding locations.
+     * Returns an empty index if the file does not exist or is not in the current format.
+     */
+    @WorkerThread
+    @NonNull
+    Index load() {
+        final Index index = new Index();
+        if (!file.exists()) return index;
+
+        final long start = System.currentTimeMillis();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid once closed, and later appends or trims leave it untouched
+            final MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!readHeader(buffer)) {
+                Log.w(TAG, "Discarding cache file with unknown format");
+                delete();
+                return index;
+            }
+
+            int validEnd = buffer.position();
+            while (buffer.remaining() >= 4) {
+                final int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) break;
+
+                final ByteBuffer record = buffer.slice();
+                record.limit(length);
+                try {
+                    index.add(record);
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    Log.w(TAG, "Stopping at corrupt record", e);
+                    break;
+                }
+                buffer.position(buffer.position() + length);
+                validEnd = buffer.position();
+            }
+
+            if (validEnd < channel.size()) {
+                Log.w(TAG, "Truncating torn record(s) at offset " + validEnd);
+                truncate(validEnd);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read cache file", e);
+        }
+        Log.d(TAG, "Indexed " + index.recordCount + " records in "
+                + (System.currentTimeMillis() - start) + "ms");
+        return index;
+    }
+
+    /**
+     * Append the given result to the file, trimming older records if the file grows too large.
+     * @return The record as written, mapped from the file to be added to an {@link Index};
+     *         null if it could not be written
+     */
+    @WorkerThread
+    @Nullable
+    ByteBuffer append(@NonNull ApiResult result) {
+        try {
+            final byte[] record = encodeResult(result);
+            final boolean writeHeader = !file.exists() || file.length() < HEADER_SIZE;
+            final long offset = (writeHeader ? HEADER_SIZE : file.length()) + 4;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(file, !writeHeader)))) {
+                if (writeHeader) writeHeader(out);
+                out.writeInt(record.length);
+                out.write(record);
+            }
+            // Mapped before trimming, which moves records to a new file but leaves this one mapped
+            final ByteBuffer mapped;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, record.length);
+            }
+            if (file.length() > MAX_FILE_SIZE) trim(MAX_FILE_SIZE / 2);
+            return mapped;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to append to cache file", e);
+            return null;
+        }
+    }
+
+    /**
+     * Remove all cached records.
+     */
+    @WorkerThread
+    void delete() {
+        if (file.exists() && !file.delete()) Log.w(TAG, "Failed to delete cache file");
+    }
+
+    /**
+     * Rewrite the file keeping only the newest records that fit within the given size.
+     * Records are copied as raw bytes, without decoding them.
+     */
+    private void trim(long targetSize) throws IOException {
+        final File temp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            final MappedByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!readHeader(buffer)) {
+                delete();
+                return;
+            }
+
+            // Find record offsets, then keep the longest suffix that fits in the target size
+            final List<Integer> offsets = new ArrayList<>();
+            while (buffer.remaining() >= 4) {
+                final int length = buffer.getInt(buffer.position());
+                if (length < 0 || length > buffer.remaining() - 4) break;
+                offsets.add(buffer.position());
+                buffer.position(buffer.position() + 4 + length);
+            }
+            final int end = buffer.position();
+            int keepFrom = end;
+            int dropped = offsets.size();
+            for (int i = offsets.size() - 1; i >= 0; --i) {
+                if (end - offsets.get(i) > targetSize - HEADER_SIZE) break;
+                keepFrom = offsets.get(i);
+                dropped = i;
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temp)))) {
+                writeHeader(out);
+                final ByteBuffer kept = buffer.duplicate();
+                kept.position(keepFrom);
+                kept.limit(end);
+                final byte[] bytes = new byte[kept.remaining()];
+                kept.get(bytes);
+                out.write(bytes);
+            }
+            Log.d(TAG, "Trimmed " + dropped + " old records");
+        }
+        if (!temp.renameTo(file)) throw new IOException("Failed to replace cache file");
+    }
+
+    private void truncate(long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+    }
+
+    private static boolean readHeader(ByteBuffer buffer) {
+        return buffer.remaining() >= HEADER_SIZE &&
+                buffer.getInt() == MAGIC &&
+                buffer.getInt() == FORMAT_VERSION;
+    }
+
+    /**
+     * The records of a loaded file, by data source and tile. Each tile maps to the newest record
+     * covering it; records stay indexed after being read, so that tiles evicted from memory can
+     * be read again, until newer data for their tiles replaces them.
+     * Finding, adding and forgetting records is confined to one thread; reading them may happen
+     * on another.
+     */
+    static final class Index {
+        private final Map<String, Map<Integer, Record>> records = new HashMap<>();
+        private int recordCount = 0;
+        private Deprecations deprecations = null;
+
+        /** Index the given record, e.g. as returned by {@link #append(ApiResult)}, as the newest */
+        void add(@NonNull ByteBuffer record) {
+            final ByteBuffer header = record.duplicate();
+            final String dataSrc = readString(header);
+            header.getLong(); // fetchedAt
+            header.getLong(); // dataVersion
+            final LatLngBounds bounds = new LatLngBounds(
+                    new LatLng(header.getDouble(), header.getDouble()),
+                    new LatLng(header.getDouble(), header.getDouble()));
+            deprecations = new Deprecations(header.getInt());
+            recordCount++;
+            if (dataSrc == null) return;
+
+            final Record indexed = new Record(record);
+            Map<Integer, Record> tiles = records.get(dataSrc);
+            if (tiles == null) records.put(dataSrc, tiles = new HashMap<>());
+            for (int tile : TileGrid.tilesIn(bounds)) {
+                final Record replaced = tiles.put(tile, indexed);
+                if (replaced != null) replaced.tiles.remove(tile);
+                indexed.tiles.add(tile);
+            }
+        }
+
+        /**
+         * Returns the deprecations of the newest record, or null if there are no records.
+         */
+        @Nullable
+        Deprecations getDeprecations() {
+            return deprecations;
+        }
+
+        /**
+         * Returns the records holding any of the given tiles, each once, and leaves them indexed.
+         * @param loadedTiles Tiles to skip, e.g. those already in memory
+         * @return The records, to be read with {@link #read(Record, Set)}
+         */
+        @NonNull
+        List<Record> find(@NonNull String dataSrc, @NonNull LatLngBounds bounds,
+                          @NonNull IntPredicate loadedTiles) {
+            final Map<Integer, Record> tiles = records.get(dataSrc);
+            if (tiles == null) return Collections.emptyList();
+            final Set<Record> found = new LinkedHashSet<>();
+            for (int tile : TileGrid.tilesIn(bounds)) {
+                if (loadedTiles.test(tile)) continue;
+                final Record record = tiles.get(tile);
+                if (record != null) found.add(record);
+            }
+            return new ArrayList<>(found);
+        }
+
+        /**
+         * Returns the tiles the given record is still the newest record for, to read it with.
+         */
+        @NonNull
+        Set<Integer> tilesOf(@NonNull Record record) {
+            return new HashSet<>(record.tiles);
+        }
+
+        /**
+         * Remove the given record from the index, e.g. because it turned out to be corrupt.
+         */
+        void forget(@NonNull String dataSrc, @NonNull Record record) {
+            final Map<Integer, Record> tiles = records.get(dataSrc);
+            if (tiles == null) return;
+            for (int tile : record.tiles) {
+                if (tiles.get(tile) == record) tiles.remove(tile);
+            }
+            record.tiles.clear();
+        }
+
+        /**
+         * Remove the given tiles from the index, since newer data replaced them.
+         */
+        void forget(@NonNull String dataSrc, @NonNull LatLngBounds bounds) {
+            final Map<Integer, Record> tiles = records.get(dataSrc);
+            if (tiles == null) return;
+            for (int tile : TileGrid.tilesIn(bounds)) {
+                final Record record = tiles.remove(tile);
+                if (record != null) record.tiles.remove(tile);
+            }
+        }
+
+        /**
+         * Remove every tile of the given data source from the index.
+         */
+        void forget(@NonNull String dataSrc) {
+            records.remove(dataSrc);
+        }
+
+        /**
+         * Decode the given record, keeping only the given tiles of it.
+         * @param tiles As returned by {@link #tilesOf(Record)} when the record was found
+         * @return The record as one result, or one result per tile if only some are kept;
+         *         empty if the record turns out to be corrupt
+         */
+        @WorkerThread
+        @NonNull
+        static List<ApiResult> read(@NonNull Record record, @NonNull Set<Integer> tiles) {
+            final ApiResult result;
+            try {
+                result = readResult(record.bytes.duplicate());
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                Log.w(TAG, "Skipping corrupt record", e);
+                return Collections.emptyList();
+            }
+            if (tiles.size() == TileGrid.tilesIn(result.getBounds()).size()) {
+                return Collections.singletonList(result);
+            }
+            return split(result, tiles);
+        }
+
+        /**
+         * Split the given result into one result per given tile, leaving out the other tiles.
+         */
+        @NonNull
+        static List<ApiResult> split(@NonNull ApiResult result,
+                                     @NonNull Collection<Integer> tiles) {
+            final Map<Integer, List<ArcadeLocation>> byTile = new HashMap<>();
+            for (int tile : tiles) byTile.put(tile, new ArrayList<>());
+            for (ArcadeLocation location : result.getLocations()) {
+                final List<ArcadeLocation> tile =
+                        byTile.get(TileGrid.tileOf(location.getPosition()));
+                if (tile != null) tile.add(location);
+            }
+            final List<ApiResult> parts = new ArrayList<>(byTile.size());
+            for (Map.Entry<Integer, List<ArcadeLocation>> tile : byTile.entrySet()) {
+                final ApiResult part = new ApiResult(result.getSources(), tile.getValue(),
+                        result.getDeprecations(), TileGrid.boundsOf(tile.getKey()));
+                part.setDataSrc(result.getDataSrc());
+                part.setFetchedAt(result.getFetchedAt());
+                part.setDataVersion(result.getDataVersion());
+                parts.add(part);
+            }
+            return parts;
+        }
+    }
+
+    /** A record of a loaded file, and the tiles it is the newest record for */
+    static final class Record {
+        private final ByteBuffer bytes;
+        private final Set<Integer> tiles = new HashSet<>();
+
+        private Record(@NonNull ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    // Record encoding
+
+    private static byte[] encodeResult(ApiResult result) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        writeString(out, result.getDataSrc());
+        out.writeLong(result.getFetchedAt());
+        out.writeLong(result.getDataVersion());
+        final LatLngBounds bounds = result.getBounds();
+        out.writeDouble(bounds.southwest.latitude);
+        out.writeDouble(bounds.southwest.longitude);
+        out.writeDouble(bounds.northeast.latitude);
+        out.writeDouble(bounds.northeast.longitude);
+
+        final Deprecations deprecations = result.getDeprecations();
+        out.writeInt(deprecations != null ? deprecations.getGooglePlay() : 0);
+
+        writeSources(out, result.getSources());
+
+        final List<ArcadeLocation> locations = result.getLocations();
+        out.writeInt(locations.size());
+        for (ArcadeLocation location : locations) writeLocation(out, location);
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static ApiResult readResult(ByteBuffer in) {
+        final String dataSrc = readString(in);
+        final long fetchedAt = in.getLong();
+        final long dataVersion = in.getLong();
+        final LatLng southwest = new LatLng(in.getDouble(), in.getDouble());
+        final LatLng northeast = new LatLng(in.getDouble(), in.getDouble());
+
+        final Deprecations deprecations = new Deprecations(in.getInt());
+
+        final List<DataSource> sources = readSources(in);
+
+        final int locationCount = readCount(in);
+        final List<ArcadeLocation> locations = new ArrayList<>(locationCount);
+        for (int i = 0; i < locationCount; ++i) locations.add(readLocation(in));
+
+        final ApiResult result = new ApiResult(sources, locations, deprecations,
+                new LatLngBounds(southwest, northeast));
+        result.setDataSrc(dataSrc);
+        result.setFetchedAt(fetchedAt);
+        result.setDataVersion(dataVersion);
+        return result;
+    }
+
+    // Shared with OfflinePack
+
+    static void writeSources(DataOutputStream out, List<DataSource> sources) throws IOException {
+        out.writeInt(sources.size());
+        for (DataSource source : sources) {
+            writeString(out, source.getShortName());
+            writeString(out, source.getName());
+            writeString(out, source.getInfoURL());
+            out.writeBoolean(source.hasDDR());
+        }
+    }
+
+    static List<DataSource> readSources(ByteBuffer in) {
+        final int sourceCount = readCount(in);
+        final List<DataSource> sources = new ArrayList<>(sourceCount);
+        for (int i = 0; i < sourceCount; ++i) {
+            sources.add(new DataSource(readString(in), readString(in), readString(in),
+                    in.get() != 0));
+        }
+        return sources;
+    }
+
+    static void writeLocation(DataOutputStream out, ArcadeLocation location) throws IOException {
+        out.writeInt(location.getId());
+        writeString(out, location.getSrc());
+        writeString(out, location.getSid());
+        writeString(out, location.getName());
+        writeString(out, location.getCity());
+        out.writeDouble(location.getPosition().latitude);
+        out.writeDouble(location.getPosition().longitude);
+        out.writeBoolean(location.hasDDR());
+    }
+
+    static ArcadeLocation readLocation(ByteBuffer in) {
+        return new ArcadeLocation(in.getInt(),
+                readString(in), readString(in), readString(in), readString(in),
+                in.getDouble(), in.getDouble(), in.get() != 0);
+    }
+
+    /** Strings are written as a byte length (-1 for null) followed by UTF-8 bytes */
+    static void writeString(DataOutputStream out, @Nullable String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nullable
+    static String readString(ByteBuffer in) {
+        final int length = in.getInt();
+        if (length == -1) return null;
+        if (length < 0 || length > in.remaining()) throw new IllegalArgumentException("Bad string length");
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int readCount(ByteBuffer in) {
+        final int count = in.getInt();
+        if (count < 0 || count > in.remaining()) throw new IllegalArgumentException("Bad count");
+        return count;
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import androidx.annotation.NonNull;
+
+import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.DataSource;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Spatially indexed store of the arcades loaded for a single data source.
+ * Locations are held per {@link TileGrid} tile, and their positions are kept in a quadtree,
+ * so lookups cost a range query instead of a scan over every result loaded during the session.
+ * Tiles are kept in least-recently-used order, so the owner can evict them to stay in budget,
+ * along with the time they were fetched, so the owner can revalidate them once stale,
+ * and the dataset version they reflect, so that revalidation can ask for changes only.
+ * Each arcade is held once, as a row of an {@link ArcadeTable} keyed by id, however many
+ * overlapping results contained it; tiles and the quadtree refer to rows.
+ * Not thread-safe; used from the main thread by {@link CachedMapLoader}.
+ */
+final class ArcadeStore {
+    /** Loaded tiles, least recently used first */
+    private final LinkedHashMap<Integer, Tile> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    /** Which tiles are loaded, for exact and cheap coverage tests */
+    private final TileBitmap loadedTiles = new TileBitmap();
+    /** Text shared between arcades, e.g. the source and chain names */
+    private final StringTable strings = new StringTable();
+    private final ArcadeTable table = new ArcadeTable(strings);
+    /** Rows of the table by position */
+    private final QuadTree locations = new QuadTree();
+    /** Rows of the table by arcade id */
+    private final IntMap byId = new IntMap();
+    private final Map<String, DataSource> sources = new LinkedHashMap<>();
+    private int locationCount = 0;
+
+    // Scratch row sets, kept between calls so that adding and querying allocate nothing per row
+    private final BitSet replacedRows = new BitSet();
+    private final BitSet addedRows = new BitSet();
+    private final BitSet queryRows = new BitSet();
+
+    /**
+     * Add the locations and sources of the given API result, whose bounds must be whole tiles.
+     * Previously loaded locations in those tiles are replaced.
+     * @return Whether the locations of any of the tiles differ from what was loaded before
+     */
+    boolean add(@NonNull ApiResult result) {
+        // Empty the tiles being replaced, keeping their rows around for re-use
+        final List<Integer> tileIds = TileGrid.tilesIn(result.getBounds());
+        final Tile[] added = new Tile[tileIds.size()];
+        // Index into added by tile id, so that looking up each location's tile boxes nothing
+        final IntMap addedIndex = new IntMap();
+        int replacedCount = 0;
+        for (int i = 0; i < added.length; ++i) {
+            final int tileId = tileIds.get(i);
+            Tile tile = tiles.remove(tileId);
+            if (tile != null) {
+                for (int j = 0; j < tile.size; ++j) replacedRows.set(tile.rows[j]);
+                replacedCount += tile.size;
+                tile.reset(result.getFetchedAt(), result.getDataVersion());
+            } else {
+                tile = new Tile(result.getFetchedAt(), result.getDataVersion());
+            }
+            added[i] = tile;
+            addedIndex.put(tileId, i);
+        }
+        locationCount -= replacedCount;
+
+        int addedCount = 0;
+        int reusedCount = 0;
+        for (ArcadeLocation location : result.getLocations()) {
+            // Locations on the outer edge of the box belong to a neighbouring tile not loaded
+            final int index = addedIndex.get(TileGrid.tileOf(location.getPosition()));
+            if (index == IntMap.NONE) continue;
+            final Tile tile = added[index];
+
+            final int existing = byId.get(location.getId());
+            final int row;
+            if (existing == IntMap.NONE) {
+                row = insertRow(location);
+            } else if (addedRows.get(existing)) {
+                // Listed twice in this result
+                continue;
+            } else if (!replacedRows.get(existing)) {
+                // Moved here from a tile that is not being replaced
+                removeFromTile(existing);
+                row = insertRow(location);
+            } else if (table.sameFields(existing, location)) {
+                // Keep the row as it is if nothing about the location changed
+                row = existing;
+                reusedCount++;
+            } else {
+                row = insertRow(location);
+            }
+            addedRows.set(row);
+            tile.add(row);
+            addedCount++;
+        }
+
+        // Drop the rows of locations no longer listed, or listed with different fields
+        replacedRows.andNot(addedRows);
+        for (int row = replacedRows.nextSetBit(0); row >= 0;
+             row = replacedRows.nextSetBit(row + 1)) {
+            removeRow(row);
+        }
+        replacedRows.clear();
+        addedRows.clear();
+
+        for (int i = 0; i < added.length; ++i) {
+            tiles.put(tileIds.get(i), added[i]);
+            loadedTiles.set(tileIds.get(i));
+        }
+        locationCount += addedCount;
+        for (DataSource source : result.getSources()) {
+            sources.put(source.getShortName(), source);
+        }
+        return reusedCount != replacedCount || reusedCount != addedCount;
+    }
+
+    /**
+     * Whether every tile of the given box has been loaded.
+     */
+    boolean isLoaded(@NonNull LatLngBounds box) {
+        return loadedTiles.isCovered(box);
+    }
+
+    /**
+     * Whether any tile of the given box has been loaded.
+     */
+    boolean isAnyTileLoaded(@NonNull LatLngBounds box) {
+        for (int tileId : TileGrid.tilesIn(box)) {
+            if (loadedTiles.get(tileId)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether the given tile has been loaded.
+     */
+    boolean isTileLoaded(int tileId) {
+        return loadedTiles.get(tileId);
+    }
+
+    /**
+     * Returns the tiles of the given box that have not been loaded yet.
+     */
+    @NonNull
+    List<Integer> getMissingTiles(@NonNull LatLngBounds box) {
+        return loadedTiles.getMissing(box);
+    }
+
+    /**
+     * Returns the loaded tiles of the given box that were fetched before the given time.
+     */
+    @NonNull
+    List<Integer> getStaleTiles(@NonNull LatLngBounds box, long fetchedBefore) {
+        final List<Integer> stale = new ArrayList<>();
+        for (int tileId : TileGrid.tilesIn(box)) {
+            final Tile tile = tiles.get(tileId);
+            if (tile != null && tile.fetchedAt < fetchedBefore) stale.add(tileId);
+        }
+        return stale;
+    }
+
+    /**
+     * Apply a delta result, holding only the arcades added, changed or removed within its bounds
+     * since the dataset version its tiles were loaded at. Every one of those tiles must be loaded.
+     * @return Whether any locations changed
+     */
+    boolean applyDelta(@NonNull ApiResult delta) {
+        final Set<Integer> tileIds = new HashSet<>(TileGrid.tilesIn(delta.getBounds()));
+        boolean changed = false;
+
+        for (int id : delta.getRemoved()) {
+            final int removed = byId.get(id);
+            if (removed != IntMap.NONE && tileIds.contains(tileOf(removed))) {
+                removeFromTile(removed);
+                changed = true;
+            }
+        }
+
+        for (ArcadeLocation location : delta.getLocations()) {
+            // The old copy goes even if the location moved out of the delta's tiles
+            final int existing = byId.get(location.getId());
+            if (existing != IntMap.NONE) {
+                if (table.sameFields(existing, location)) continue;
+                removeFromTile(existing);
+                changed = true;
+            }
+
+            // Locations on the outer edge of the box belong to a neighbouring tile, whose own
+            // revalidation will add them
+            final int tileId = TileGrid.tileOf(location.getPosition());
+            if (!tileIds.contains(tileId)) continue;
+            Objects.requireNonNull(tiles.get(tileId)).add(insertRow(location));
+            locationCount++;
+            changed = true;
+        }
+
+        for (int tileId : tileIds) {
+            final Tile tile = Objects.requireNonNull(tiles.get(tileId));
+            tile.fetchedAt = delta.getFetchedAt();
+            tile.dataVersion = delta.getDataVersion();
+        }
+        for (DataSource source : delta.getSources()) {
+            sources.put(source.getShortName(), source);
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the oldest dataset version among the tiles of the given box,
+     * or 0 if any of them is not loaded or has no known version.
+     */
+    long getDataVersion(@NonNull LatLngBounds box) {
+        long oldest = Long.MAX_VALUE;
+        for (int tileId : TileGrid.tilesIn(box)) {
+            final Tile tile = tiles.get(tileId);
+            if (tile == null || tile.dataVersion == 0) return 0;
+            oldest = Math.min(oldest, tile.dataVersion);
+        }
+        return (oldest == Long.MAX_VALUE) ? 0 : oldest;
+    }
+
+    /**
+     * Mark the given loaded tiles as fetched at the given time, e.g. after the server confirmed
+     * that they have not changed.
+     */
+    void markFetched(@NonNull List<Integer> tileIds, long fetchedAt) {
+        for (int tileId : tileIds) {
+            final Tile tile = tiles.get(tileId);
+            if (tile != null) tile.fetchedAt = fetchedAt;
+        }
+    }
+
+    /**
+     * Returns the locations within the given box, marking its tiles as recently used.
+     */
+    @NonNull
+    List<ArcadeLocation> getLocations(@NonNull LatLngBounds box) {
+        return getLocations(box, false);
+    }
+
+    /**
+     * Returns the locations within the given box, marking its tiles as recently used.
+     * @param hasDDROnly Whether to only return locations that have DDR, found by intersecting
+     *                   the rows in the box with the table's hasDDR bits before any views exist
+     */
+    @NonNull
+    List<ArcadeLocation> getLocations(@NonNull LatLngBounds box, boolean hasDDROnly) {
+        // The tiles being shown must be the last to be evicted
+        touch(box);
+
+        locations.query(box, queryRows);
+        if (hasDDROnly) table.retainHasDDR(queryRows);
+        final List<ArcadeLocation> result = table.views(queryRows);
+        queryRows.clear();
+        return result;
+    }
+
+    /**
+     * Mark the loaded tiles of the given box as the most recently used.
+     */
+    private void touch(@NonNull LatLngBounds box) {
+        final int westColumn = TileGrid.westColumn(box);
+        final int eastColumn = TileGrid.eastColumn(box);
+        // Columns wrap around from west to east when the box crosses the antimeridian
+        final int columnCount = eastColumn - westColumn + 1 +
+                (TileGrid.crossesAntimeridian(box) ? TileGrid.COLUMNS : 0);
+        for (int row = TileGrid.southRow(box); row <= TileGrid.northRow(box); ++row) {
+            for (int i = 0; i < columnCount; ++i) {
+                final int tileId = TileGrid.tileId(row, (westColumn + i) % TileGrid.COLUMNS);
+                // Reading moves a tile to the end of the access order; unloaded ids are not boxed
+                if (loadedTiles.get(tileId)) tiles.get(tileId);
+            }
+        }
+    }
+
+    /**
+     * Returns every source seen in results for this data source.
+     */
+    @NonNull
+    Collection<DataSource> getSources() {
+        return sources.values();
+    }
+
+    /**
+     * Returns the number of locations currently held.
+     */
+    int getLocationCount() {
+        return locationCount;
+    }
+
+    /**
+     * Evict the least recently used tile that is not in the given set.
+     * @return The number of locations evicted, or -1 if there was no tile to evict
+     */
+    int evictLeastRecentlyUsed(@NonNull Set<Integer> keepTiles) {
+        final Iterator<Map.Entry<Integer, Tile>> iterator = tiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Integer, Tile> tile = iterator.next();
+            if (keepTiles.contains(tile.getKey())) continue;
+
+            final Tile evicted = tile.getValue();
+            iterator.remove();
+            loadedTiles.clear(tile.getKey());
+            for (int i = 0; i < evicted.size; ++i) removeRow(evicted.rows[i]);
+            locationCount -= evicted.size;
+            return evicted.size;
+        }
+        return -1;
+    }
+
+    /**
+     * Remove every loaded tile, keeping the store itself usable, e.g. by fetches in flight.
+     */
+    void clear() {
+        int evicted;
+        do {
+            evicted = evictLeastRecentlyUsed(Collections.emptySet());
+        } while (evicted >= 0);
+    }
+
+    private int insertRow(@NonNull ArcadeLocation location) {
+        final int row = table.insert(location);
+        locations.insert(table.getLatitude(row), table.getLongitude(row), row);
+        byId.put(location.getId(), row);
+        return row;
+    }
+
+    private void removeRow(int row) {
+        locations.remove(table.getLatitude(row), table.getLongitude(row), row);
+        if (byId.get(table.getId(row)) == row) byId.remove(table.getId(row));
+        table.remove(row);
+    }
+
+    private void removeFromTile(int row) {
+        final Tile tile = tiles.get(tileOf(row));
+        if (tile != null) tile.remove(row);
+        removeRow(row);
+        locationCount--;
+    }
+
+    private int tileOf(int row) {
+        return TileGrid.tileOf(table.getLatitude(row), table.getLongitude(row));
+    }
+
+    private static final class Tile {
+        /** Rows of the table held by the tile, in the first {@link #size} elements */
+        int[] rows = EMPTY;
+        int size = 0;
+        /** Time the tile was fetched from the server, in epoch milliseconds */
+        long fetchedAt;
+        /** Dataset version the tile reflects, or 0 if unknown */
+        long dataVersion;
+
+        /** Empty tiles share an empty array */
+        private static final int[] EMPTY = new int[0];
+
+        Tile(long fetchedAt, long dataVersion) {
+            reset(fetchedAt, dataVersion);
+        }
+
+        /** Empty the tile for reloading, keeping its array */
+        void reset(long fetchedAt, long dataVersion) {
+            this.fetchedAt = fetchedAt;
+            this.dataVersion = dataVersion;
+            size = 0;
+        }
+
+        void add(int row) {
+            if (size == rows.length) rows = Arrays.copyOf(rows, Math.max(8, size * 2));
+            rows[size++] = row;
+        }
+
+        void remove(int row) {
+            for (int i = 0; i < size; ++i) {
+                if (rows[i] == row) {
+                    rows[i] = rows[--size];
+                    return;
+                }
+            }
+        }
+    }
+}
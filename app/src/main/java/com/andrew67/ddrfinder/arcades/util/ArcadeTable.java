@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import androidx.annotation.NonNull;
+
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.StringSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Column-oriented table of arcade locations, one row per arcade.
+ * Fields are held in parallel primitive arrays instead of one object per arcade, so tens of
+ * thousands of loaded arcades cost a few arrays rather than as many objects, and scans over
+ * positions or the hasDDR flag do not chase pointers.
+ * The source, name and city are indices into a {@link StringTable}, so each distinct value is
+ * held once however many arcades share it. Locations whose sid, name and city are still
+ * encoded (see {@link ArcadeLocation#getStringSource()}) keep them as references into that
+ * source instead, so they are only decoded if a view of the row has them read.
+ * {@link ArcadeLocation} instances are only created as views of the rows a query returns.
+ * Rows freed by {@link #remove(int)} are re-used by later inserts. Not thread-safe.
+ */
+final class ArcadeTable {
+    private static final int MIN_CAPACITY = 64;
+
+    private int[] ids = new int[MIN_CAPACITY];
+    private double[] lats = new double[MIN_CAPACITY];
+    private double[] lngs = new double[MIN_CAPACITY];
+    private final BitSet hasDDR = new BitSet();
+    private final StringTable strings;
+    private int[] srcs = new int[MIN_CAPACITY];
+    /** Source the sid, name and city of the row refer into, or null if held decoded */
+    private StringSource[] encoded = new StringSource[MIN_CAPACITY];
+    private String[] sids = new String[MIN_CAPACITY];
+    private int[] sidReferences = new int[MIN_CAPACITY];
+    /** Indices into the string table, or references into the encoded source */
+    private int[] names = new int[MIN_CAPACITY];
+    private int[] cities = new int[MIN_CAPACITY];
+
+    /** Rows in use */
+    private final BitSet used = new BitSet();
+    /** Rows freed and not yet re-used, most recently freed last */
+    private int[] freeRows = new int[MIN_CAPACITY];
+    private int freeCount = 0;
+    /** Rows ever allocated; the highest row in use is below this */
+    private int rowLimit = 0;
+
+    /**
+     * @param strings Table the text fields are interned into
+     */
+    ArcadeTable(@NonNull StringTable strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * Copy the fields of the given location into a new row.
+     * @return The row
+     */
+    int insert(@NonNull ArcadeLocation location) {
+        final int row;
+        if (freeCount > 0) {
+            row = freeRows[--freeCount];
+        } else {
+            row = rowLimit++;
+            if (row == ids.length) grow(ids.length * 2);
+        }
+        ids[row] = location.getId();
+        lats[row] = location.getPosition().latitude;
+        lngs[row] = location.getPosition().longitude;
+        hasDDR.set(row, location.hasDDR());
+        srcs[row] = strings.intern(location.getSrc());
+        encoded[row] = location.getStringSource();
+        if (encoded[row] != null) {
+            sidReferences[row] = location.getSidReference();
+            names[row] = location.getNameReference();
+            cities[row] = location.getCityReference();
+        } else {
+            sids[row] = location.getSid();
+            names[row] = strings.intern(location.getName());
+            cities[row] = strings.intern(location.getCity());
+        }
+        used.set(row);
+        return row;
+    }
+
+    /**
+     * Free the given row for re-use.
+     */
+    void remove(int row) {
+        if (!used.get(row)) throw new IllegalArgumentException("Row " + row + " is not in use");
+        used.clear(row);
+        hasDDR.clear(row);
+        strings.release(srcs[row]);
+        if (encoded[row] == null) {
+            strings.release(names[row]);
+            strings.release(cities[row]);
+        }
+        encoded[row] = null;
+        sids[row] = null;
+        if (freeCount == freeRows.length) freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        freeRows[freeCount++] = row;
+    }
+
+    int getId(int row) {
+        return ids[row];
+    }
+
+    double getLatitude(int row) {
+        return lats[row];
+    }
+
+    double getLongitude(int row) {
+        return lngs[row];
+    }
+
+    /**
+     * Whether the given row holds the same displayed fields as the given location.
+     */
+    boolean sameFields(int row, @NonNull ArcadeLocation location) {
+        return lats[row] == location.getPosition().latitude &&
+                lngs[row] == location.getPosition().longitude &&
+                hasDDR.get(row) == location.hasDDR() &&
+                strings.equals(srcs[row], location.getSrc()) &&
+                sameText(row, location);
+    }
+
+    private boolean sameText(int row, @NonNull ArcadeLocation location) {
+        final StringSource rowText = encoded[row];
+        final StringSource locationText = location.getStringSource();
+        if (rowText == null) {
+            return Objects.equals(sids[row], location.getSid()) &&
+                    strings.equals(names[row], location.getName()) &&
+                    strings.equals(cities[row], location.getCity());
+        }
+        if (locationText == null) {
+            return Objects.equals(rowText.get(sidReferences[row]), location.getSid()) &&
+                    Objects.equals(rowText.get(names[row]), location.getName()) &&
+                    Objects.equals(rowText.get(cities[row]), location.getCity());
+        }
+        // Both still encoded, e.g. a tile reloaded in the binary format
+        return rowText.equals(sidReferences[row], locationText, location.getSidReference()) &&
+                rowText.equals(names[row], locationText, location.getNameReference()) &&
+                rowText.equals(cities[row], locationText, location.getCityReference());
+    }
+
+    /**
+     * Clear the given rows that do not have DDR, a word at a time.
+     */
+    void retainHasDDR(@NonNull BitSet rows) {
+        rows.and(hasDDR);
+    }
+
+    /**
+     * Returns new views of the given rows.
+     */
+    @NonNull
+    List<ArcadeLocation> views(@NonNull BitSet rows) {
+        final List<ArcadeLocation> result = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            if (encoded[row] != null) {
+                result.add(new ArcadeLocation(ids[row], strings.get(srcs[row]), encoded[row],
+                        sidReferences[row], names[row], cities[row],
+                        lats[row], lngs[row], hasDDR.get(row)));
+            } else {
+                result.add(new ArcadeLocation(ids[row], strings.get(srcs[row]), sids[row],
+                        strings.get(names[row]), strings.get(cities[row]),
+                        lats[row], lngs[row], hasDDR.get(row)));
+            }
+        }
+        return result;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        lats = Arrays.copyOf(lats, capacity);
+        lngs = Arrays.copyOf(lngs, capacity);
+        srcs = Arrays.copyOf(srcs, capacity);
+        encoded = Arrays.copyOf(encoded, capacity);
+        sids = Arrays.copyOf(sids, capacity);
+        sidReferences = Arrays.copyOf(sidReferences, capacity);
+        names = Arrays.copyOf(names, capacity);
+        cities = Arrays.copyOf(cities, capacity);
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.DataSource;
+import com.andrew67.ddrfinder.arcades.model.Deprecations;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.andrew67.ddrfinder.arcades.model.StringSource;
+
+import okio.BufferedSource;
+
+/**
+ * Reads API results in the compact binary encoding that the server may offer in place of JSON.
+ * Compared to JSON, field names are not repeated per arcade, strings shared between arcades
+ * (e.g. src and city) are sent once, and coordinates need no text-to-double conversion.
+ * <p>
+ * Layout, where varints are unsigned LEB128 and svarints are zigzag-encoded varints:
+ * <pre>
+ * int32   magic "DDRB", then a version byte
+ * svarint error code (-1 for success)
+ * varint  string count, then each string as a varint UTF-8 byte length and its bytes
+ * varint  error message (string reference)
+ * varint  Google Play deprecation level
+ * varint  source count, then per source: shortName, name, infoURL (string references)
+ *         and a hasDDR byte
+ * varint  location count, then per location:
+ *         svarint id, as the difference from the previous location's id
+ *         varint src, sid, name, city (string references)
+ *         svarint lat, lng in millionths of a degree, as differences from the previous location
+ *         byte    hasDDR
+ * </pre>
+ * String references are indices into the string table plus one, with 0 standing for null.
+ * The string table is read into a single byte array. Source names and error text are decoded
+ * while reading, but each location's sid, name and city stay references into that array,
+ * through {@link ArcadeLocation#getStringSource()}, until something reads them.
+ */
+final class BinaryApiResultReader {
+    static final String MEDIA_TYPE = "application/vnd.ddrfinder.result+binary";
+
+    private static final int MAGIC = 0x44445242; // "DDRB"
+    private static final int VERSION = 1;
+    private static final double COORDINATE_SCALE = 1e6;
+    /** Bytes taken by the smallest possible string table entry */
+    private static final int MIN_STRING_SIZE = 1;
+
+    private BinaryApiResultReader() { }
+
+    /**
+     * Read a whole result, passing its locations to the given consumer in chunks along the way.
+     */
+    @NonNull
+    static ApiResult read(@NonNull BufferedSource source, int chunkSize,
+                          @NonNull Consumer<List<ArcadeLocation>> onChunk) throws IOException {
+        if (source.readInt() != MAGIC) throw new IOException("Not a binary API result");
+        final int version = source.readByte();
+        if (version != VERSION) throw new IOException("Unsupported binary version " + version);
+
+        final int errorCode = (int) readSignedVarint(source);
+        final StringSection strings = StringSection.read(source);
+        final String error = readString(source, strings);
+        final Deprecations deprecations = new Deprecations((int) readVarint(source));
+
+        final List<DataSource> sources = new ArrayList<>();
+        for (int remaining = readCount(source); remaining > 0; --remaining) {
+            sources.add(new DataSource(readString(source, strings), readString(source, strings),
+                    readString(source, strings), source.readByte() != 0));
+        }
+
+        // Records are read as they arrive, so a count larger than the data runs out of bytes
+        // while reading; it only must not size an allocation up front
+        final int locationCount = readCount(source);
+        final List<ArcadeLocation> locations = new ArrayList<>(Math.min(locationCount, chunkSize));
+        List<ArcadeLocation> chunk = new ArrayList<>(chunkSize);
+        int id = 0;
+        long lat = 0;
+        long lng = 0;
+        for (int i = 0; i < locationCount; ++i) {
+            id += (int) readSignedVarint(source);
+            final String src = readString(source, strings);
+            final int sid = strings.readReference(source);
+            final int name = strings.readReference(source);
+            final int city = strings.readReference(source);
+            lat += readSignedVarint(source);
+            lng += readSignedVarint(source);
+            final ArcadeLocation location = new ArcadeLocation(id, src, strings, sid, name, city,
+                    lat / COORDINATE_SCALE, lng / COORDINATE_SCALE, source.readByte() != 0);
+
+            locations.add(location);
+            chunk.add(location);
+            if (chunk.size() == chunkSize) {
+                onChunk.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) onChunk.accept(chunk);
+
+        // Deltas are only offered in JSON, so binary results are always complete
+        return new ApiResult(error, errorCode == ApiResult.ERROR_OK ? null : errorCode,
+                sources, locations, deprecations, null, null, null);
+    }
+
+    @Nullable
+    private static String readString(@NonNull BufferedSource source,
+                                     @NonNull StringSection strings) throws IOException {
+        return strings.get(strings.readReference(source));
+    }
+
+    /**
+     * Fail unless the source holds at least the given number of bytes, before allocating for a
+     * count read from it. The bytes are buffered, which the read that follows needs anyway.
+     */
+    private static void requireBytes(@NonNull BufferedSource source, long byteCount)
+            throws IOException {
+        if (!source.request(byteCount)) throw new EOFException("Count exceeds the data");
+    }
+
+    /**
+     * The string table of a result, kept as the UTF-8 bytes it was sent in until each string
+     * is first needed. Decoded strings are cached; racing threads can only both decode the
+     * same immutable string.
+     */
+    private static final class StringSection implements StringSource {
+        private final byte[] bytes;
+        /** Start of each string in {@link #bytes}, plus the end of the last one */
+        private final int[] offsets;
+        private final String[] decoded;
+
+        private StringSection(byte[] bytes, int[] offsets) {
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.decoded = new String[offsets.length - 1];
+        }
+
+        /**
+         * Read a string table, sizing its array up front by first scanning the lengths through a
+         * peek of the source, so the bytes are copied once.
+         */
+        static StringSection read(@NonNull BufferedSource source) throws IOException {
+            final int count = readCount(source);
+            requireBytes(source, (long) count * MIN_STRING_SIZE);
+
+            final BufferedSource peek = source.peek();
+            long size = 0;
+            for (int i = 0; i < count; ++i) {
+                final int length = readCount(peek);
+                size += length;
+                if (size > Integer.MAX_VALUE) throw new IOException("String table too large");
+                peek.skip(length);
+            }
+
+            final byte[] bytes = new byte[(int) size];
+            final int[] offsets = new int[count + 1];
+            for (int i = 0; i < count; ++i) {
+                final int length = readCount(source);
+                final int offset = offsets[i];
+                for (int read = 0; read < length; ) {
+                    final int n = source.read(bytes, offset + read, length - read);
+                    if (n == -1) throw new EOFException();
+                    read += n;
+                }
+                offsets[i + 1] = offset + length;
+            }
+            return new StringSection(bytes, offsets);
+        }
+
+        /** Read a string reference, checking that it is in range so that it decodes later */
+        int readReference(@NonNull BufferedSource source) throws IOException {
+            final int reference = readCount(source);
+            if (reference > decoded.length) {
+                throw new IOException("Bad string reference " + reference);
+            }
+            return reference;
+        }
+
+        @Nullable
+        @Override
+        public String get(int reference) {
+            if (reference == NULL) return null;
+            final int index = reference - 1;
+            String string = decoded[index];
+            if (string == null) {
+                string = decoded[index] = new String(bytes, offsets[index],
+                        offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+            }
+            return string;
+        }
+
+        @Override
+        public boolean equals(int reference, @NonNull StringSource other, int otherReference) {
+            if (!(other instanceof StringSection)) {
+                return Objects.equals(get(reference), other.get(otherReference));
+            }
+            if (reference == NULL || otherReference == NULL) {
+                return reference == otherReference;
+            }
+            final StringSection that = (StringSection) other;
+            if (that == this && reference == otherReference) return true;
+            final int start = offsets[reference - 1];
+            final int length = offsets[reference] - start;
+            final int otherStart = that.offsets[otherReference - 1];
+            if (that.offsets[otherReference] - otherStart != length) return false;
+            for (int i = 0; i < length; ++i) {
+                if (bytes[start + i] != that.bytes[otherStart + i]) return false;
+            }
+            return true;
+        }
+    }
+
+    /** Reads a varint used as a count, length or reference, which must fit a non-negative int */
+    private static int readCount(@NonNull BufferedSource source) throws IOException {
+        final long value = readVarint(source);
+        if (value > Integer.MAX_VALUE) throw new IOException("Count out of range: " + value);
+        return (int) value;
+    }
+
+    private static long readSignedVarint(@NonNull BufferedSource source) throws IOException {
+        final long value = readVarint(source);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarint(@NonNull BufferedSource source) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = source.readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
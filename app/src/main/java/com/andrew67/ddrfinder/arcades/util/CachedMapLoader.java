@@ -23,31 +23,132 @@
 
 package com.andrew67.ddrfinder.arcades.util;
 
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import android.util.Log;
 
+import com.andrew67.ddrfinder.R;
 import com.andrew67.ddrfinder.arcades.model.ApiResult;
 import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
 import com.andrew67.ddrfinder.arcades.model.DataSource;
 import com.andrew67.ddrfinder.arcades.model.Deprecations;
-import com.google.android.gms.maps.model.LatLng;
 import com.google.android.gms.maps.model.LatLngBounds;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Loads arcades for given bounds box and data source using the DDR Finder API on the server.
- * As locations come in, results are cached and re-used for locations already loaded before
+ * Loads arcades for given bounds box and data source, from memory, the disk cache, an offline pack
+ * or the network. Results are cached per {@link TileGrid} tile, so only the tiles
+ * missing from the cache are requested, and stale tiles are shown while they are revalidated.
+ * Only the most recent request is answered; older ones still waiting are superseded.
  */
 public class CachedMapLoader {
     private static final String TAG = "CachedMapLoader";
-    private final List<ApiResult> resultsCache = Collections.synchronizedList(new ArrayList<>());
+    /** Loaded results, indexed per data source short name */
+    private final Map<String, ArcadeStore> stores = new HashMap<>();
     private Deprecations deprecationsCache;
 
+    /** Default budget for the number of locations held in memory across all data sources */
+    public static final int DEFAULT_MAX_CACHED_LOCATIONS = 40000;
+    /** Budget for devices that report themselves as low-RAM */
+    public static final int LOW_RAM_MAX_CACHED_LOCATIONS = 10000;
+    /** Rough heap cost of one cached location, including its strings; used for reporting only */
+    private static final int ESTIMATED_BYTES_PER_LOCATION = 250;
+    private int maxCachedLocations = DEFAULT_MAX_CACHED_LOCATIONS;
+
+    /** Partial results of a streaming response are shown at most this often */
+    private static final long PARTIAL_RESULT_INTERVAL_MILLIS = 300;
+
+    /** Cached tiles older than this are shown, then revalidated in the background */
+    private static final long STALE_AFTER_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    /** Network fetches in flight, per data source short name and tile */
+    private final Map<String, Map<Integer, TileFetch>> inFlightFetches = new HashMap<>();
+    /** The most recent request, while it waits on the network; null otherwise */
+    @Nullable
+    private ViewportRequest currentRequest = null;
+    /**
+     * Fetches a viewport request waits on at once; the rest of its boxes are queued behind them.
+     * Also caps the revalidations started per request, as stale tiles left out are still shown
+     */
+    private static final int MAX_FETCHES_PER_REQUEST = 2;
+
+    /** Prefetches are capped so that they never crowd out the requests for what is on screen */
+    private static final int MAX_PREFETCHES_IN_FLIGHT = 2;
+    /** Areas with more missing tiles than this (e.g. zoomed far out) are not prefetched */
+    private static final int MAX_PREFETCH_TILES = 64;
+    /** Areas larger than this are not even looked up, as listing their tiles is costly */
+    private static final int MAX_PREFETCH_AREA_TILES = 4 * MAX_PREFETCH_TILES;
+    private int prefetchesInFlight = 0;
+
+    /** Complete datasets downloaded for offline use, per data source short name */
+    private final Map<String, OfflinePack> offlinePacks = new HashMap<>();
+    /** Offline pack downloads in progress, per data source short name */
+    private final Map<String, OfflinePackDownload> offlinePackDownloads = new HashMap<>();
+    /** Offline packs older than this are refreshed in the background, on unmetered networks */
+    private static final long OFFLINE_PACK_REFRESH_AFTER_MILLIS = TimeUnit.DAYS.toMillis(7);
+    /** Minimum time between background refresh attempts, so that failures are not repeated */
+    private static final long OFFLINE_PACK_REFRESH_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private long lastOfflinePackRefresh = 0;
+    /**
+     * The whole world split into regions for an offline pack, few enough to be requested as a
+     * single batch, and small enough that no one box covers the whole dataset
+     */
+    private static final List<LatLngBounds> WORLD_REGIONS = worldRegions(4, 4);
+    /** Counts requests, so that answers read in the background can tell if superseded */
+    private int requestSequence = 0;
+
+    // Most recent request, which receives updates from background revalidation
+    private LatLngBounds latestBounds = null;
+    /** Tiles of {@link #latestBounds}, worked out once per request */
+    private Set<Integer> latestTiles = Collections.emptySet();
+    private String latestDataSrc = null;
+    private boolean latestHasDDROnly = false;
+    private MapLoaderCallback latestCallback = null;
+
+    // Statistics
+    private int hitCount = 0;
+    private int missCount = 0;
+    private int evictionCount = 0;
+    private int coalescedCount = 0;
+    private int prefetchedCount = 0;
+    private int cancelledCount = 0;
+    private int notModifiedCount = 0;
+    private int offlineCount = 0;
+
+    private static final String DISK_CACHE_FILE = "arcades.bin";
+    private static final String HTTP_CACHE_DIRECTORY = "http";
+    private static final String OFFLINE_PACK_DIRECTORY = "offline";
+    private File offlinePackDirectory = null;
+    private ConnectivityManager connectivityManager = null;
+    private final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private ArcadeDiskCache diskCache = null;
+    /** Records of the disk cache, by tile. Null until loaded */
+    private ArcadeDiskCache.Index diskIndex = null;
+    /** Requests made while the disk cache is loading; replayed once it is ready. Null when ready */
+    private List<Runnable> pendingRequests = null;
+
     // Singleton pattern
     private CachedMapLoader() { }
     private static CachedMapLoader instance = null;
@@ -56,119 +157,978 @@ public class CachedMapLoader {
         return instance = new CachedMapLoader();
     }
 
+    /**
+     * Set the maximum number of locations held in memory across all data sources.
+     * Least recently used tiles are evicted once it is exceeded.
+     */
+    @MainThread
+    public void setMaxCachedLocations(int maxCachedLocations) {
+        this.maxCachedLocations = maxCachedLocations;
+        trimToBudget(null, Collections.emptySet());
+    }
+
+    /**
+     * Set up a connection to the server in the background, ahead of the first request,
+     * e.g. while the splash screen shows and the map initializes.
+     */
+    @MainThread
+    public void warmUpConnection() {
+        NetworkMapLoader.warmUp();
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics, for diagnostics.
+     */
+    @NonNull
+    public Stats getStats() {
+        int locationCount = 0;
+        for (ArcadeStore store : stores.values()) locationCount += store.getLocationCount();
+        return new Stats(hitCount, missCount, evictionCount, coalescedCount, prefetchedCount,
+                cancelledCount, notModifiedCount, offlineCount, locationCount,
+                (long) locationCount * ESTIMATED_BYTES_PER_LOCATION,
+                NetworkMapLoader.getNetworkStats());
+    }
+
+    /**
+     * Attach the persistent on-disk cache, so that results survive process death.
+     * Its contents are indexed in the background; requests made in the meantime are held back
+     * until indexing completes, and records are then only read once a request needs their tiles.
+     * The HTTP cache used for revalidating with the server and any offline packs downloaded
+     * are attached alongside it; stale offline packs are then refreshed in the background.
+     */
+    @MainThread
+    public void attachDiskCache(@NonNull Context context) {
+        if (diskCache != null) return;
+        NetworkMapLoader.attachHttpCache(new File(context.getCacheDir(), HTTP_CACHE_DIRECTORY));
+        diskCache = new ArcadeDiskCache(new File(context.getCacheDir(), DISK_CACHE_FILE));
+        offlinePackDirectory = new File(context.getFilesDir(), OFFLINE_PACK_DIRECTORY);
+        connectivityManager = context.getApplicationContext()
+                .getSystemService(ConnectivityManager.class);
+        pendingRequests = new ArrayList<>();
+
+        final ArcadeDiskCache loadingDiskCache = diskCache;
+        final File loadingPackDirectory = offlinePackDirectory;
+        diskExecutor.execute(() -> {
+            final ArcadeDiskCache.Index index = loadingDiskCache.load();
+            final Map<String, OfflinePack> packs = OfflinePack.openAll(loadingPackDirectory);
+            mainHandler.post(() -> {
+                offlinePacks.putAll(packs);
+                for (String dataSrc : packs.keySet()) refreshOfflinePackIfStale(dataSrc);
+                diskIndex = index;
+                if (deprecationsCache == null) deprecationsCache = index.getDeprecations();
+                runPendingRequests();
+            });
+        });
+    }
+
+    /**
+     * Read the records of the disk cache holding any tile of the given bounds not in memory yet.
+     * Requests made meanwhile are held back as during startup, then run after the given one.
+     * @param request The request to run once read, or null for a prefetch, which holds back
+     *                nothing: requests made meanwhile fetch what they need themselves
+     * @return Whether any records are being read; if not, the given request was not run
+     */
+    private boolean readFromDiskCache(@NonNull String dataSrc, @NonNull LatLngBounds bounds,
+                                      @Nullable Runnable request) {
+        // Offline packs are refreshed as a whole, so what the disk cache holds is older
+        if (diskIndex == null || offlinePacks.containsKey(dataSrc)) return false;
+        final ArcadeStore store = getStore(dataSrc);
+        final List<ArcadeDiskCache.Record> records =
+                diskIndex.find(dataSrc, bounds, store::isTileLoaded);
+        if (records.isEmpty()) return false;
+        final List<Set<Integer>> recordTiles = new ArrayList<>(records.size());
+        for (ArcadeDiskCache.Record record : records) recordTiles.add(diskIndex.tilesOf(record));
+
+        if (request != null) {
+            pendingRequests = new ArrayList<>();
+            pendingRequests.add(request);
+        }
+        diskExecutor.execute(() -> {
+            final List<List<ApiResult>> results = new ArrayList<>(records.size());
+            for (int i = 0; i < records.size(); ++i) {
+                results.add(ArcadeDiskCache.Index.read(records.get(i), recordTiles.get(i)));
+            }
+            mainHandler.post(() -> {
+                for (int i = 0; i < records.size(); ++i) {
+                    // Corrupt; the request made again must not find it again
+                    if (results.get(i).isEmpty()) diskIndex.forget(dataSrc, records.get(i));
+                    for (ApiResult result : results.get(i)) addFromDiskCache(store, result);
+                }
+                Log.d(TAG, "Read " + records.size() + " records from the disk cache");
+                if (request == null) {
+                    trimToBudget(store, dataSrc.equals(latestDataSrc) ?
+                            latestTiles : Collections.emptySet());
+                    return;
+                }
+                trimToBudget(store, new HashSet<>(TileGrid.tilesIn(bounds)));
+                runPendingRequests();
+            });
+        });
+        return true;
+    }
+
+    /**
+     * Add a result read from the disk cache to the given store, leaving out the tiles loaded
+     * from the network meanwhile, which are newer.
+     */
+    private static void addFromDiskCache(@NonNull ArcadeStore store, @NonNull ApiResult result) {
+        if (!store.isAnyTileLoaded(result.getBounds())) {
+            store.add(result);
+            return;
+        }
+        final List<Integer> missingTiles = store.getMissingTiles(result.getBounds());
+        if (missingTiles.isEmpty()) return;
+        for (ApiResult part : ArcadeDiskCache.Index.split(result, missingTiles)) store.add(part);
+    }
+
+    private void runPendingRequests() {
+        final List<Runnable> requests = pendingRequests;
+        pendingRequests = null;
+        for (Runnable request : requests) request.run();
+    }
+
+    /**
+     * Request the locations within the given bounds, answering the callback from the cache
+     * where possible.
+     * @param hasDDROnly Whether to only deliver locations that have DDR
+     * @param force Whether to fetch every tile from the network, even if cached
+     */
     public void requestLocations(@NonNull LatLngBounds bounds,
                                  @NonNull String dataSrc,
+                                 boolean hasDDROnly,
                                  boolean force,
                                  final @NonNull MapLoaderCallback callback) {
+        final LatLngBounds requestedBounds = bounds;
+        if (pendingRequests != null) {
+            pendingRequests.add(() ->
+                    requestLocations(requestedBounds, dataSrc, hasDDROnly, force, callback));
+            return;
+        }
+        // Tiles held on disk are read in first, then the request is made again
+        if (!force && readFromDiskCache(dataSrc, bounds, () ->
+                requestLocations(requestedBounds, dataSrc, hasDDROnly, false, callback))) return;
+
         callback.onPreLoad();
+        requestSequence++;
+        latestBounds = bounds;
+        latestTiles = new HashSet<>(TileGrid.tilesIn(bounds));
+        latestDataSrc = dataSrc;
+        latestHasDDROnly = hasDDROnly;
+        latestCallback = callback;
 
-        if (!force) {
-            final ApiResult cachedApiResult = alreadyLoaded(bounds, dataSrc);
-            if (cachedApiResult != null) {
-                Log.d(TAG, "Cache HIT!");
-                callback.onLocationsLoaded(cachedApiResult);
-                callback.onFinish();
-                return;
+        final ArcadeStore store = getStore(dataSrc);
+        if (!force && store.isLoaded(bounds)) {
+            supersedeCurrentRequest();
+            hitCount++;
+            Log.d(TAG, "Cache HIT! " + getStats());
+            callback.onLocationsLoaded(buildResult(store, bounds, hasDDROnly));
+            callback.onFinish();
+            revalidateStaleTiles(store, dataSrc, bounds);
+            return;
+        }
+
+        final OfflinePack offlinePack = offlinePacks.get(dataSrc);
+        if (offlinePack != null) {
+            requestFromOfflinePack(offlinePack, store, dataSrc, bounds, hasDDROnly, force,
+                    callback);
+            refreshOfflinePackIfStale(dataSrc);
+            return;
+        }
+        missCount++;
+
+        // The server keeps failing or asked us to back off; show what is cached meanwhile
+        if (NetworkMapLoader.isCircuitOpen()) {
+            supersedeCurrentRequest();
+            Log.d(TAG, "Circuit open; serving cached locations only");
+            callback.onError(ApiResult.ERROR_UNEXPECTED, R.string.error_api_unexpected);
+            if (deprecationsCache != null) {
+                callback.onLocationsLoaded(buildResult(store, bounds, hasDDROnly));
             }
+            callback.onFinish();
+            return;
+        }
+
+        final List<Integer> missingTiles = force ?
+                TileGrid.tilesIn(bounds) : store.getMissingTiles(bounds);
+
+        // Attach to fetches already in flight for any of the missing tiles (e.g. fast panning),
+        // then fetch the rest, merged into as few boxes as possible
+        final ViewportRequest request =
+                new ViewportRequest(bounds, store, dataSrc, hasDDROnly, callback);
+        final Map<Integer, TileFetch> inFlight = getInFlightFetches(dataSrc);
+        final Set<TileFetch> attachedFetches = new HashSet<>();
+        final List<Integer> tilesToFetch = new ArrayList<>();
+        for (int tile : missingTiles) {
+            final TileFetch fetch = inFlight.get(tile);
+            if (fetch != null) attachedFetches.add(fetch);
+            else tilesToFetch.add(tile);
+        }
+        coalescedCount += missingTiles.size() - tilesToFetch.size();
+        for (TileFetch fetch : attachedFetches) fetch.attach(request);
+
+        request.queuedBoxes.addAll(TileGrid.toBoxes(tilesToFetch));
+        final int fetchCount = request.startQueuedFetches();
+        Log.d(TAG, "Cache MISS; fetching " + tilesToFetch.size() + " tiles in " +
+                fetchCount + " request(s) with " + request.queuedBoxes.size() +
+                " boxes queued, waiting on " + attachedFetches.size() + " in flight. " +
+                getStats());
+
+        // Only after attaching, so that fetches both requests need are kept
+        supersedeCurrentRequest();
+        currentRequest = request;
+
+        if (!force) revalidateStaleTiles(store, dataSrc, bounds);
+    }
+
+    /**
+     * Warm the cache for the given bounds in the background, without delivering any result.
+     * Only tiles not loaded nor already in flight are fetched, and only while no viewport request
+     * is waiting on the network and fewer than {@link #MAX_PREFETCHES_IN_FLIGHT} prefetches are.
+     * Tiles held on disk are read in first, without holding back requests made meanwhile.
+     * @return The number of tiles requested
+     */
+    @MainThread
+    public int prefetch(@NonNull LatLngBounds bounds, @NonNull String dataSrc) {
+        if (pendingRequests != null || currentRequest != null ||
+                offlinePacks.containsKey(dataSrc) ||
+                prefetchesInFlight >= MAX_PREFETCHES_IN_FLIGHT ||
+                NetworkMapLoader.isCircuitOpen() ||
+                TileGrid.tileCount(bounds) > MAX_PREFETCH_AREA_TILES) return 0;
+
+        if (readFromDiskCache(dataSrc, bounds, null)) return 0;
+
+        final ArcadeStore store = getStore(dataSrc);
+        final List<Integer> missingTiles = store.getMissingTiles(bounds);
+        missingTiles.removeAll(getInFlightFetches(dataSrc).keySet());
+        if (missingTiles.isEmpty() || missingTiles.size() > MAX_PREFETCH_TILES) return 0;
+
+        int requested = 0;
+        for (TileFetch fetch : startFetches(store, dataSrc, TileGrid.toBoxes(missingTiles),
+                false, MAX_PREFETCHES_IN_FLIGHT - prefetchesInFlight)) {
+            fetch.prefetch = true;
+            prefetchesInFlight++;
+            requested += fetch.tiles.size();
         }
+        prefetchedCount += requested;
+        Log.d(TAG, "Prefetching " + requested + " tiles");
+        return requested;
+    }
+
+    /**
+     * Stop waiting on behalf of the current request, since a newer one replaces it.
+     * Its callback receives nothing further.
+     */
+    private void supersedeCurrentRequest() {
+        if (currentRequest == null) return;
+        Log.d(TAG, "Superseding previous request");
+        for (TileFetch fetch : currentRequest.fetches) fetch.detach(currentRequest);
+        currentRequest.queuedBoxes.clear();
+        currentRequest = null;
+    }
 
-        // force || cachedApiResult == null
+    /**
+     * Re-fetch the loaded tiles of the given box that have gone stale, in the background.
+     * If any of them changed, the most recent request is sent an updated result.
+     */
+    private void revalidateStaleTiles(@NonNull ArcadeStore store, @NonNull String dataSrc,
+                                      @NonNull LatLngBounds bounds) {
+        final List<Integer> staleTiles = store.getStaleTiles(bounds,
+                System.currentTimeMillis() - STALE_AFTER_MILLIS);
+        staleTiles.removeAll(getInFlightFetches(dataSrc).keySet());
+        // Stale is better than nothing while the server is being held off,
+        // and tiles read from an offline pack are refreshed along with the pack
+        if (staleTiles.isEmpty() || NetworkMapLoader.isCircuitOpen() ||
+                offlinePacks.containsKey(dataSrc)) return;
 
-        // Round the currently viewed bounds to the nearest whole degree, for two purposes:
-        // - when zoomed in, provides a smoother pan/zoom experience with reduced loading time
-        // - sets the precision to a minimum of 43.5km (see: https://en.wikipedia.org/wiki/Decimal_degrees)
-        //   which provides privacy to the user (especially if the bounds include their location)
-        bounds = LatLngBounds.builder()
-                .include(new LatLng(
-                        Math.ceil(bounds.northeast.latitude),
-                        Math.ceil(bounds.northeast.longitude)))
-                .include(new LatLng(
-                        Math.floor(bounds.southwest.latitude),
-                        Math.floor(bounds.southwest.longitude)))
-                .build();
+        Log.d(TAG, "Revalidating " + staleTiles.size() + " stale tiles");
+        startFetches(store, dataSrc, TileGrid.toBoxes(staleTiles), true,
+                MAX_FETCHES_PER_REQUEST);
+    }
 
-        new NetworkMapLoader(dataSrc, new MapLoaderCallback() {
-            @Override
-            public void onPreLoad() {
-                // Do nothing
+    /**
+     * Start network fetches for the given boxes of whole tiles, registered as in flight.
+     * Where the server supports it, each fetch loads up to {@link NetworkMapLoader#MAX_BATCH_BOXES}
+     * boxes in a single request. A revalidation asks for the changes since the oldest data version
+     * among its boxes, which covers the changes to each of them.
+     * @param boxes The boxes to fetch; those started are removed from it, the rest are left
+     * @param revalidation Whether the tiles are already loaded, and only being checked for changes
+     * @param maxFetches At most this many fetches are started
+     */
+    @NonNull
+    private List<TileFetch> startFetches(@NonNull ArcadeStore store, @NonNull String dataSrc,
+                                         @NonNull List<LatLngBounds> boxes,
+                                         boolean revalidation, int maxFetches) {
+        final int boxesPerFetch = NetworkMapLoader.isBatchSupported() ?
+                NetworkMapLoader.MAX_BATCH_BOXES : 1;
+        final Map<Integer, TileFetch> inFlight = getInFlightFetches(dataSrc);
+        final List<TileFetch> fetches = new ArrayList<>();
+        while (!boxes.isEmpty() && fetches.size() < maxFetches) {
+            final List<LatLngBounds> batch = boxes.subList(0, Math.min(boxesPerFetch, boxes.size()));
+            final List<LatLngBounds> fetchBoxes = new ArrayList<>(batch);
+            batch.clear();
+            final TileFetch fetch = new TileFetch(store, dataSrc, fetchBoxes, revalidation);
+            if (revalidation) {
+                long sinceDataVersion = Long.MAX_VALUE;
+                for (LatLngBounds box : fetchBoxes) {
+                    sinceDataVersion = Math.min(sinceDataVersion, store.getDataVersion(box));
+                }
+                fetch.loader.setSinceDataVersion(sinceDataVersion);
             }
+            for (int tile : fetch.tiles) inFlight.put(tile, fetch);
+            fetch.loader.execute(fetchBoxes);
+            fetches.add(fetch);
+        }
+        return fetches;
+    }
 
-            @Override
-            public void onLocationsLoaded(@NonNull ApiResult result) {
-                resultsCache.add(result);
-                deprecationsCache = result.getDeprecations();
+    /**
+     * Answer a request from the offline pack of its data source, reading the tiles missing from
+     * memory in the background. Nothing is delivered if a newer request is made meanwhile.
+     */
+    private void requestFromOfflinePack(@NonNull OfflinePack pack, @NonNull ArcadeStore store,
+                                        @NonNull String dataSrc, @NonNull LatLngBounds bounds,
+                                        boolean hasDDROnly, boolean force,
+                                        @NonNull MapLoaderCallback callback) {
+        supersedeCurrentRequest();
+        offlineCount++;
+        final int sequence = requestSequence;
+        final List<LatLngBounds> boxes = TileGrid.toBoxes(force ?
+                TileGrid.tilesIn(bounds) : store.getMissingTiles(bounds));
+        diskExecutor.execute(() -> {
+            final List<ApiResult> results = new ArrayList<>(boxes.size());
+            for (LatLngBounds box : boxes) results.add(pack.query(box));
+            mainHandler.post(() -> {
+                for (ApiResult result : results) {
+                    result.setDataSrc(dataSrc);
+                    store.add(result);
+                }
+                trimToBudget(store, dataSrc.equals(latestDataSrc) ?
+                        latestTiles : Collections.emptySet());
+                if (deprecationsCache == null) deprecationsCache = pack.getDeprecations();
+                if (sequence != requestSequence) return;
+
+                final ApiResult result = buildResult(store, bounds, hasDDROnly);
+                if (result.getLocations().isEmpty()) {
+                    callback.onError(ApiResult.ERROR_NO_RESULTS, R.string.area_no_results);
+                }
                 callback.onLocationsLoaded(result);
+                callback.onFinish();
+            });
+        });
+    }
+
+    /**
+     * Download the complete dataset of the given data source for offline use, replacing any
+     * previous download once complete. From then on, the data source is loaded without the
+     * network, and the download is refreshed in the background once it goes stale.
+     * @param listener Notified once the download finishes, or null
+     */
+    @MainThread
+    public void downloadOfflinePack(@NonNull String dataSrc,
+                                    @Nullable OfflinePackListener listener) {
+        startOfflinePackDownload(dataSrc, false, listener);
+    }
+
+    /**
+     * Delete all offline packs, cancelling any download in progress.
+     * Their data sources are loaded from the network again.
+     */
+    @MainThread
+    public void deleteOfflinePacks() {
+        for (OfflinePackDownload download : offlinePackDownloads.values()) {
+            download.loader.cancel();
+        }
+        offlinePackDownloads.clear();
+        offlinePacks.clear();
+        if (offlinePackDirectory == null) return;
+
+        final File deletingPackDirectory = offlinePackDirectory;
+        diskExecutor.execute(() -> {
+            final File[] files = deletingPackDirectory.listFiles();
+            if (files != null) for (File file : files) OfflinePack.delete(file);
+        });
+    }
+
+    /**
+     * Whether an offline pack of the given data source has been downloaded.
+     */
+    @MainThread
+    public boolean hasOfflinePack(@NonNull String dataSrc) {
+        return offlinePacks.containsKey(dataSrc);
+    }
+
+    /**
+     * Whether an offline pack is being downloaded.
+     */
+    @MainThread
+    public boolean isDownloadingOfflinePack() {
+        return !offlinePackDownloads.isEmpty();
+    }
+
+    /**
+     * Total size of the offline packs downloaded, in bytes.
+     */
+    @MainThread
+    public long getOfflinePackSize() {
+        long size = 0;
+        for (OfflinePack pack : offlinePacks.values()) size += pack.getSize();
+        return size;
+    }
+
+    private void refreshOfflinePackIfStale(@NonNull String dataSrc) {
+        final OfflinePack pack = offlinePacks.get(dataSrc);
+        final long now = SystemClock.elapsedRealtime();
+        if (pack == null || offlinePackDownloads.containsKey(dataSrc) ||
+                System.currentTimeMillis() - pack.getFetchedAt() <
+                        OFFLINE_PACK_REFRESH_AFTER_MILLIS ||
+                (lastOfflinePackRefresh != 0 &&
+                        now - lastOfflinePackRefresh < OFFLINE_PACK_REFRESH_INTERVAL_MILLIS) ||
+                connectivityManager == null || connectivityManager.getActiveNetwork() == null ||
+                connectivityManager.isActiveNetworkMetered() ||
+                NetworkMapLoader.isCircuitOpen()) return;
+
+        Log.d(TAG, "Refreshing offline pack for " + dataSrc);
+        lastOfflinePackRefresh = now;
+        startOfflinePackDownload(dataSrc, true, null);
+    }
+
+    private void startOfflinePackDownload(@NonNull String dataSrc, boolean refresh,
+                                          @Nullable OfflinePackListener listener) {
+        if (offlinePackDirectory == null) {
+            if (listener != null) listener.onOfflinePackUpdated(dataSrc, false);
+            return;
+        }
+        OfflinePackDownload download = offlinePackDownloads.get(dataSrc);
+        if (download == null) {
+            download = new OfflinePackDownload(dataSrc, refresh);
+            offlinePackDownloads.put(dataSrc, download);
+            download.loader.execute(WORLD_REGIONS);
+        }
+        if (listener != null && !download.listeners.contains(listener)) {
+            download.listeners.add(listener);
+        }
+    }
+
+    /**
+     * Stop notifying the given listener of offline pack downloads, e.g. when its screen is gone.
+     */
+    @MainThread
+    public void removeOfflinePackListener(@NonNull OfflinePackListener listener) {
+        for (OfflinePackDownload download : offlinePackDownloads.values()) {
+            download.listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Split the world into the given number of rows and columns of whole tiles.
+     */
+    @NonNull
+    private static List<LatLngBounds> worldRegions(int rows, int columns) {
+        final List<LatLngBounds> regions = new ArrayList<>(rows * columns);
+        for (int row = 0; row < rows; ++row) {
+            for (int column = 0; column < columns; ++column) {
+                regions.add(TileGrid.boundsOf(
+                        row * TileGrid.ROWS / rows, column * TileGrid.COLUMNS / columns,
+                        (row + 1) * TileGrid.ROWS / rows - 1,
+                        (column + 1) * TileGrid.COLUMNS / columns - 1));
             }
+        }
+        return regions;
+    }
 
-            @Override
-            public void onError(int errorCode, int errorMessageResourceId) {
-                callback.onError(errorCode, errorMessageResourceId);
+    /**
+     * Merge the results of {@link #WORLD_REGIONS} into one for the whole world. Locations on the
+     * border of two regions are returned for both, and kept once.
+     */
+    @NonNull
+    private static ApiResult mergeRegions(@NonNull List<ApiResult> results) {
+        final Map<String, DataSource> sources = new LinkedHashMap<>();
+        final List<ArcadeLocation> locations = new ArrayList<>();
+        final Set<Integer> locationIds = new HashSet<>();
+        long fetchedAt = Long.MAX_VALUE;
+        long dataVersion = Long.MAX_VALUE;
+        for (ApiResult result : results) {
+            for (DataSource source : result.getSources()) {
+                sources.put(source.getShortName(), source);
+            }
+            for (ArcadeLocation location : result.getLocations()) {
+                if (locationIds.add(location.getId())) locations.add(location);
             }
+            fetchedAt = Math.min(fetchedAt, result.getFetchedAt());
+            dataVersion = Math.min(dataVersion, result.getDataVersion());
+        }
 
-            @Override
-            public void onFinish() {
-                callback.onFinish();
+        final ApiResult merged = new ApiResult(new ArrayList<>(sources.values()), locations,
+                results.get(0).getDeprecations(), TileGrid.boundsOf(0, 0,
+                        TileGrid.ROWS - 1, TileGrid.COLUMNS - 1));
+        merged.setDataSrc(results.get(0).getDataSrc());
+        merged.setFetchedAt(fetchedAt);
+        merged.setDataVersion(dataVersion);
+        return merged;
+    }
+
+    @NonNull
+    private Map<Integer, TileFetch> getInFlightFetches(@NonNull String dataSrc) {
+        Map<Integer, TileFetch> inFlight = inFlightFetches.get(dataSrc);
+        if (inFlight == null) inFlightFetches.put(dataSrc, inFlight = new HashMap<>());
+        return inFlight;
+    }
+
+    /**
+     * Send an updated result to the most recent request, if it overlaps the given updated box.
+     */
+    private void deliverToLatestRequest(@NonNull String dataSrc, @NonNull LatLngBounds updated) {
+        if (latestCallback == null || !dataSrc.equals(latestDataSrc)) return;
+        for (int tile : TileGrid.tilesIn(updated)) {
+            if (latestTiles.contains(tile)) {
+                latestCallback.onLocationsLoaded(
+                        buildResult(getStore(dataSrc), latestBounds, latestHasDDROnly));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Add a result fresh from the network to the given store, then persist it.
+     * A delta result is applied on top of the tiles it covers instead.
+     * @return Whether any locations changed compared to what was cached before
+     */
+    private boolean addLoadedResult(@NonNull ArcadeStore store, @NonNull String dataSrc,
+                                    @NonNull ApiResult result) {
+        deprecationsCache = result.getDeprecations();
+        // Older records of these tiles on disk must not be read over the new ones
+        if (diskIndex != null) diskIndex.forget(dataSrc, result.getBounds());
+        final boolean changed;
+        final ApiResult persisted;
+        if (result.isDelta()) {
+            // Tiles evicted while the delta was in flight are fetched in full once needed again
+            if (!store.isLoaded(result.getBounds())) {
+                Log.d(TAG, "Dropping delta for tiles no longer loaded");
+                return false;
+            }
+            changed = store.applyDelta(result);
+            // The disk cache holds complete results, so persist the tiles the delta produced
+            persisted = buildResult(store, result.getBounds());
+            persisted.setDataSrc(dataSrc);
+            persisted.setFetchedAt(result.getFetchedAt());
+            persisted.setDataVersion(result.getDataVersion());
+            Log.d(TAG, "Applied delta of " + result.getLocations().size() + " changed and " +
+                    result.getRemoved().size() + " removed locations");
+        } else {
+            changed = store.add(result);
+            persisted = result;
+        }
+
+        // Never evict what is on screen to make room
+        trimToBudget(store, dataSrc.equals(latestDataSrc) ?
+                latestTiles : Collections.emptySet());
+        if (diskCache != null) {
+            final ArcadeDiskCache appendingDiskCache = diskCache;
+            diskExecutor.execute(() -> {
+                final ByteBuffer record = appendingDiskCache.append(persisted);
+                // Posted in the order appended, so the newest record per tile is indexed last
+                if (record != null) mainHandler.post(() -> {
+                    if (diskIndex != null && !offlinePacks.containsKey(dataSrc)) {
+                        diskIndex.add(record);
+                    }
+                });
+            });
+        }
+        return changed;
+    }
+
+    @NonNull
+    private ArcadeStore getStore(@NonNull String dataSrc) {
+        ArcadeStore store = stores.get(dataSrc);
+        if (store == null) stores.put(dataSrc, store = new ArcadeStore());
+        return store;
+    }
+
+    /**
+     * Evict least recently used tiles until the cached location count is within budget.
+     * Tiles of other data sources go first, since the user has switched away from them.
+     * @param current The store being added to, or null if there is none
+     * @param keepTiles Tiles of the current store that must be kept, e.g. those on screen
+     */
+    private void trimToBudget(@Nullable ArcadeStore current, @NonNull Set<Integer> keepTiles) {
+        int total = 0;
+        for (ArcadeStore store : stores.values()) total += store.getLocationCount();
+
+        while (total > maxCachedLocations) {
+            int evicted = -1;
+            for (ArcadeStore store : stores.values()) {
+                if (store == current) continue;
+                evicted = store.evictLeastRecentlyUsed(Collections.emptySet());
+                if (evicted >= 0) break;
             }
-        }).execute(bounds);
+            if (evicted < 0 && current != null) {
+                evicted = current.evictLeastRecentlyUsed(keepTiles);
+            }
+            if (evicted < 0) break; // Only on-screen tiles remain
+
+            total -= evicted;
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Builds a merged "API result" with the locations in the given box, from the given store
+     */
+    @NonNull
+    private ApiResult buildResult(@NonNull ArcadeStore store, @NonNull LatLngBounds box) {
+        return buildResult(store, box, false);
     }
 
     /**
-     * Test whether the given boundaries have already been loaded for the given data source
-     * @return A merged "API result" (if all corners are cached), or null
+     * Builds a merged "API result" with the locations in the given box, from the given store
+     * @param hasDDROnly Whether to only include locations that have DDR
      */
-    private ApiResult alreadyLoaded(LatLngBounds box, String dataSrc) {
-        // Test all four corners (best we can do)
-        final LatLng northeast = box.northeast;
-        final LatLng southwest = box.southwest;
-        final LatLng northwest = new LatLng(northeast.latitude, southwest.longitude);
-        final LatLng southeast = new LatLng(southwest.latitude, northeast.longitude);
+    @NonNull
+    private ApiResult buildResult(@NonNull ArcadeStore store, @NonNull LatLngBounds box,
+                                  boolean hasDDROnly) {
+        return new ApiResult(new ArrayList<>(store.getSources()),
+                store.getLocations(box, hasDDROnly), deprecationsCache, box);
+    }
 
+    /**
+     * One network request for one or more boxes of whole tiles. While in flight, it is registered
+     * under each of its tiles so that viewport requests needing any of them can wait on it
+     * instead of issuing a duplicate request.
+     */
+    private final class TileFetch implements MapLoaderCallback {
+        final ArcadeStore store;
+        final String dataSrc;
+        final List<Integer> tiles = new ArrayList<>();
+        final List<ViewportRequest> waiting = new ArrayList<>();
+        final NetworkMapLoader loader;
+        /** Locations parsed so far for tiles not loaded yet, while the response streams in */
+        final List<ArcadeLocation> partial = new ArrayList<>();
+        /** Background revalidation; changes are sent to the most recent request */
+        final boolean revalidation;
+        /** Prefetch ahead of the camera; counted against {@link #MAX_PREFETCHES_IN_FLIGHT} */
+        boolean prefetch = false;
         boolean loaded = false;
-        boolean loadedNE = false;
-        boolean loadedSW = false;
-        boolean loadedNW = false;
-        boolean loadedSE = false;
-
-        final Set<DataSource> cachedSources = new HashSet<>();
-        final Set<ArcadeLocation> cachedArcadeLocations = new HashSet<>();
-
-        synchronized (resultsCache) {
-            for (ApiResult result : resultsCache) {
-                // Check if the result record contains results including the given data source
-                boolean containsDataSource = false;
-                for (DataSource source : result.getSources()) {
-                    if (source.getShortName().equals(dataSrc)) {
-                        containsDataSource = true;
-                        cachedSources.add(source);
+        int errorCode = ApiResult.ERROR_OK;
+        int errorMessageResourceId = 0;
+
+        TileFetch(@NonNull ArcadeStore store, @NonNull String dataSrc,
+                  @NonNull List<LatLngBounds> boxes, boolean revalidation) {
+            this.store = store;
+            this.dataSrc = dataSrc;
+            for (LatLngBounds box : boxes) tiles.addAll(TileGrid.tilesIn(box));
+            this.revalidation = revalidation;
+            this.loader = new NetworkMapLoader(dataSrc, this, revalidation);
+        }
+
+        void attach(@NonNull ViewportRequest request) {
+            waiting.add(request);
+            request.fetches.add(this);
+            request.remaining++;
+        }
+
+        /**
+         * Stop waiting on behalf of the given superseded request.
+         * Once nothing needs this fetch any more, it is cancelled.
+         */
+        void detach(@NonNull ViewportRequest request) {
+            waiting.remove(request);
+            if (!waiting.isEmpty() || revalidation || prefetch) return;
+
+            loader.cancel();
+            unregister();
+            cancelledCount++;
+        }
+
+        private void unregister() {
+            final Map<Integer, TileFetch> inFlight = getInFlightFetches(dataSrc);
+            for (int tile : tiles) {
+                if (inFlight.get(tile) == this) inFlight.remove(tile);
+            }
+        }
+
+        @Override
+        public void onPreLoad() {
+            // Do nothing
+        }
+
+        @Override
+        public void onLocationsChunk(@NonNull List<ArcadeLocation> locations) {
+            // Locations of tiles already loaded are being shown; replaced once the fetch is done
+            if (revalidation) return;
+            for (ArcadeLocation location : locations) {
+                if (!store.isTileLoaded(TileGrid.tileOf(location.getPosition()))) {
+                    partial.add(location);
+                }
+            }
+            for (ViewportRequest request : waiting) request.onPartialResult();
+        }
+
+        @Override
+        public void onLocationsLoaded(@NonNull ApiResult result) {
+            loaded = true;
+            partial.clear();
+            if (addLoadedResult(store, dataSrc, result) && revalidation) {
+                Log.d(TAG, "Revalidated tiles changed");
+                deliverToLatestRequest(dataSrc, result.getBounds());
+            }
+        }
+
+        @Override
+        public void onNotModified() {
+            notModifiedCount++;
+            store.markFetched(tiles, System.currentTimeMillis());
+        }
+
+        @Override
+        public void onError(int errorCode, int errorMessageResourceId) {
+            // Whether a viewport as a whole has no results is decided once all its fetches are in
+            if (errorCode == ApiResult.ERROR_NO_RESULTS) return;
+            if (this.errorCode == ApiResult.ERROR_OK) {
+                this.errorCode = errorCode;
+                this.errorMessageResourceId = errorMessageResourceId;
+            }
+            // For revalidation, keep showing the stale data; it is retried on a later request
+            if (revalidation) Log.d(TAG, "Revalidation failed with error code " + errorCode);
+            else if (prefetch) Log.d(TAG, "Prefetch failed with error code " + errorCode);
+        }
+
+        @Override
+        public void onFinish() {
+            if (prefetch) prefetchesInFlight--;
+            unregister();
+            for (ViewportRequest request : new ArrayList<>(waiting)) request.onFetchFinished(this);
+        }
+    }
+
+    /**
+     * Notified on the main thread once an offline pack download finishes.
+     */
+    public interface OfflinePackListener {
+        void onOfflinePackUpdated(@NonNull String dataSrc, boolean success);
+    }
+
+    /**
+     * One download of the complete dataset of a data source, written to its offline pack file.
+     * A refresh asks the server to revalidate what the HTTP cache holds; if nothing changed,
+     * the existing pack is kept and only marked as fresh.
+     */
+    private final class OfflinePackDownload implements MapLoaderCallback {
+        final String dataSrc;
+        final File file;
+        final NetworkMapLoader loader;
+        final List<OfflinePackListener> listeners = new ArrayList<>();
+        /** Results of the regions loaded, complete once there is one per region */
+        final List<ApiResult> results = new ArrayList<>();
+        boolean notModified = false;
+
+        OfflinePackDownload(@NonNull String dataSrc, boolean refresh) {
+            this.dataSrc = dataSrc;
+            this.file = OfflinePack.fileFor(offlinePackDirectory, dataSrc);
+            this.loader = new NetworkMapLoader(dataSrc, this, refresh);
+        }
+
+        @Override
+        public void onPreLoad() {
+            // Do nothing
+        }
+
+        @Override
+        public void onLocationsLoaded(@NonNull ApiResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public void onNotModified() {
+            notModified = true;
+        }
+
+        @Override
+        public void onError(int errorCode, int errorMessageResourceId) {
+            Log.d(TAG, "Offline pack download failed with error code " + errorCode);
+        }
+
+        @Override
+        public void onFinish() {
+            // A pack missing any region would hide its arcades, so it is not written
+            final boolean loaded = results.size() == WORLD_REGIONS.size();
+            if (!loaded && !notModified) {
+                finish(null);
+                return;
+            }
+            final List<ApiResult> loadedResults = new ArrayList<>(results);
+            diskExecutor.execute(() -> {
+                if (loaded) {
+                    try {
+                        OfflinePack.write(file, mergeRegions(loadedResults));
+                    } catch (IOException e) {
+                        Log.e(TAG, "Failed to write offline pack", e);
                     }
+                } else {
+                    OfflinePack.touch(file, System.currentTimeMillis());
                 }
+                final OfflinePack pack = OfflinePack.open(file);
+                mainHandler.post(() -> finish(pack));
+            });
+        }
+
+        private void finish(@Nullable OfflinePack pack) {
+            // Deleted meanwhile
+            if (offlinePackDownloads.get(dataSrc) != this) return;
+            offlinePackDownloads.remove(dataSrc);
+            if (pack != null) {
+                // Tiles read from the previous pack would otherwise be kept until evicted.
+                // The store itself stays, as fetches in flight still add to it
+                final ArcadeStore store = stores.get(dataSrc);
+                if (!results.isEmpty() && store != null) store.clear();
+                Log.d(TAG, "Offline pack for " + dataSrc + " has " + pack.getLocationCount() +
+                        " locations in " + pack.getSize() / 1024 + "KB");
+                offlinePacks.put(dataSrc, pack);
+            }
+            for (OfflinePackListener listener : listeners) {
+                listener.onOfflinePackUpdated(dataSrc, pack != null);
+            }
+        }
+    }
+
+    /**
+     * Waits for the network fetches covering the missing tiles of one viewport,
+     * and reports the merged result once they have all finished.
+     * At most {@link #MAX_FETCHES_PER_REQUEST} are waited on at once; the boxes left over are
+     * fetched as those finish, unless the request is superseded first.
+     */
+    private final class ViewportRequest {
+        final LatLngBounds bounds;
+        final ArcadeStore store;
+        final String dataSrc;
+        final boolean hasDDROnly;
+        final MapLoaderCallback callback;
+        final List<TileFetch> fetches = new ArrayList<>();
+        /** Boxes of missing tiles not fetched yet */
+        final List<LatLngBounds> queuedBoxes = new ArrayList<>();
+        int remaining = 0;
+        boolean anyLoaded = false;
+        long lastPartialResultTime = 0;
+        int errorCode = ApiResult.ERROR_OK;
+        int errorMessageResourceId = 0;
+
+        ViewportRequest(@NonNull LatLngBounds bounds, @NonNull ArcadeStore store,
+                        @NonNull String dataSrc, boolean hasDDROnly,
+                        @NonNull MapLoaderCallback callback) {
+            this.bounds = bounds;
+            this.store = store;
+            this.dataSrc = dataSrc;
+            this.hasDDROnly = hasDDROnly;
+            this.callback = callback;
+        }
 
-                // Check if the result bounds include the requested box,
-                // and add locations as we go if they do.
-                if (containsDataSource) {
-                    final LatLngBounds bounds = result.getBounds();
-
-                    if (bounds.contains(northeast) || bounds.contains(southwest) ||
-                            bounds.contains(northwest) || bounds.contains(southeast)) {
-                        for (ArcadeLocation location : result.getLocations()) {
-                            if (box.contains(location.getPosition()))
-                                cachedArcadeLocations.add(location);
-                        }
-
-                        if (bounds.contains(northeast)) loadedNE = true;
-                        if (bounds.contains(southwest)) loadedSW = true;
-                        if (bounds.contains(northwest)) loadedNW = true;
-                        if (bounds.contains(southeast)) loadedSE = true;
+        /**
+         * Show what is cached plus what the fetches have parsed so far, if it has been a while.
+         */
+        void onPartialResult() {
+            // Nothing has loaded yet to know the deprecation flags from
+            if (deprecationsCache == null) return;
+            final long now = SystemClock.uptimeMillis();
+            if (now - lastPartialResultTime < PARTIAL_RESULT_INTERVAL_MILLIS) return;
+            lastPartialResultTime = now;
+
+            final ApiResult result = buildResult(store, bounds, hasDDROnly);
+            for (TileFetch fetch : fetches) {
+                for (ArcadeLocation location : fetch.partial) {
+                    if (hasDDROnly && !location.hasDDR()) continue;
+                    if (bounds.contains(location.getPosition())) {
+                        result.getLocations().add(location);
                     }
+                }
+            }
+            callback.onLocationsLoaded(result);
+        }
 
-                    if (loadedNE && loadedSW && loadedNW && loadedSE) break;
+        void onFetchFinished(@NonNull TileFetch fetch) {
+            if (fetch.loaded) anyLoaded = true;
+            if (errorCode == ApiResult.ERROR_OK) {
+                errorCode = fetch.errorCode;
+                errorMessageResourceId = fetch.errorMessageResourceId;
+            }
+            remaining--;
+            startQueuedFetches();
+            if (remaining == 0) finish();
+        }
+
+        /**
+         * Start fetching queued boxes, up to the limit of fetches waited on at once.
+         * @return The number of fetches started
+         */
+        int startQueuedFetches() {
+            if (queuedBoxes.isEmpty() || remaining >= MAX_FETCHES_PER_REQUEST) return 0;
+            final List<TileFetch> started = startFetches(store, dataSrc, queuedBoxes, false,
+                    MAX_FETCHES_PER_REQUEST - remaining);
+            for (TileFetch fetch : started) fetch.attach(this);
+            return started.size();
+        }
+
+        void finish() {
+            if (currentRequest == this) currentRequest = null;
+            if (errorCode != ApiResult.ERROR_OK) {
+                callback.onError(errorCode, errorMessageResourceId);
+            }
+            // On partial failure, still show whatever did load
+            if (anyLoaded) {
+                final ApiResult result = buildResult(store, bounds, hasDDROnly);
+                if (errorCode == ApiResult.ERROR_OK && result.getLocations().isEmpty()) {
+                    callback.onError(ApiResult.ERROR_NO_RESULTS, R.string.area_no_results);
                 }
+                callback.onLocationsLoaded(result);
             }
+            callback.onFinish();
         }
-        if (loadedNE && loadedSW && loadedNW && loadedSE) loaded = true;
+    }
+
+    /**
+     * Cache statistics: hits and misses count requests, evictions count tiles,
+     * coalesced counts missing tiles that were waited on instead of fetched again,
+     * prefetched counts tiles requested ahead of the camera,
+     * cancelled counts fetches aborted because the request needing them was superseded,
+     * notModified counts revalidations the server answered with a 304,
+     * and offline counts requests answered from an offline pack.
+     */
+    public static final class Stats {
+        public final int hits;
+        public final int misses;
+        public final int evictions;
+        public final int coalesced;
+        public final int prefetched;
+        public final int cancelled;
+        public final int notModified;
+        public final int offline;
+        public final int locations;
+        public final long estimatedBytes;
+        @NonNull
+        public final NetworkMapLoader.NetworkStats network;
 
-        if (loaded) return new ApiResult(new ArrayList<>(cachedSources),
-                new ArrayList<>(cachedArcadeLocations), deprecationsCache, box);
-        else return null;
+        Stats(int hits, int misses, int evictions, int coalesced, int prefetched, int cancelled,
+              int notModified, int offline, int locations, long estimatedBytes,
+              @NonNull NetworkMapLoader.NetworkStats network) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.coalesced = coalesced;
+            this.prefetched = prefetched;
+            this.cancelled = cancelled;
+            this.notModified = notModified;
+            this.offline = offline;
+            this.locations = locations;
+            this.estimatedBytes = estimatedBytes;
+            this.network = network;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "hits=%d misses=%d evictions=%d coalesced=%d prefetched=%d cancelled=%d " +
+                            "notModified=%d offline=%d locations=%d (~%dKB) %s",
+                    hits, misses, evictions, coalesced, prefetched, cancelled,
+                    notModified, offline, locations, estimatedBytes / 1024, network);
+        }
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import android.os.SystemClock;
+import androidx.annotation.AnyThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Stops requests to a failing server for a while, instead of letting every camera move add to
+ * its load. After enough consecutive failures the breaker opens and rejects requests; once the
+ * cooldown is over, a single trial request is let through, which either closes it again or
+ * reopens it with a doubled cooldown. The server can also open it directly, e.g. by rate limiting.
+ * Thread-safe.
+ */
+final class CircuitBreaker {
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long baseCooldownMillis;
+    private final long maxCooldownMillis;
+    /** Elapsed realtime in millis */
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long cooldownMillis;
+    /** While open, the time until which requests are rejected, in elapsed realtime millis */
+    private long openUntil = 0;
+    /** While half-open, when the trial request was let through */
+    private long trialStartedAt = 0;
+
+    CircuitBreaker(int failureThreshold, long baseCooldownMillis, long maxCooldownMillis) {
+        this(failureThreshold, baseCooldownMillis, maxCooldownMillis,
+                SystemClock::elapsedRealtime);
+    }
+
+    @VisibleForTesting
+    CircuitBreaker(int failureThreshold, long baseCooldownMillis, long maxCooldownMillis,
+                   @NonNull LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.baseCooldownMillis = baseCooldownMillis;
+        this.maxCooldownMillis = maxCooldownMillis;
+        this.cooldownMillis = baseCooldownMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Whether requests would currently be rejected, without claiming the trial request.
+     */
+    @AnyThread
+    synchronized boolean isOpen() {
+        final long now = clock.getAsLong();
+        switch (state) {
+            case OPEN:
+                return now < openUntil;
+            case HALF_OPEN:
+                return !trialTimedOut(now);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Whether a request may be made now. Call exactly one of the outcome methods after it is.
+     */
+    @AnyThread
+    synchronized boolean allowRequest() {
+        final long now = clock.getAsLong();
+        switch (state) {
+            case OPEN:
+                if (now < openUntil) return false;
+                break;
+            case HALF_OPEN:
+                // The trial request never reported back (e.g. it was cancelled)
+                if (!trialTimedOut(now)) return false;
+                break;
+            default:
+                return true;
+        }
+        state = State.HALF_OPEN;
+        trialStartedAt = now;
+        return true;
+    }
+
+    @AnyThread
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        cooldownMillis = baseCooldownMillis;
+    }
+
+    @AnyThread
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            openFor(cooldownMillis);
+            cooldownMillis = Math.min(cooldownMillis * 2, maxCooldownMillis);
+        }
+    }
+
+    /**
+     * Reject requests for the given time, e.g. because the server asked to back off.
+     */
+    @AnyThread
+    synchronized void openFor(long millis) {
+        state = State.OPEN;
+        openUntil = Math.max(openUntil, clock.getAsLong() + millis);
+    }
+
+    private boolean trialTimedOut(long now) {
+        return now - trialStartedAt >= baseCooldownMillis;
+    }
+}
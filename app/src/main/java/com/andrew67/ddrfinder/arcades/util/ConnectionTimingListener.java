@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+/**
+ * Times the calls made on the shared client: how long setting up a new connection takes
+ * (DNS, TCP and TLS), and how long until the response headers arrive on a new connection
+ * compared to a pooled one. Comparing the two shows what warming up a connection saves
+ * (see {@link NetworkMapLoader#warmUp()}).
+ *
+ * <p>Each call gets its own listener; the totals are shared.
+ */
+final class ConnectionTimingListener extends EventListener {
+    private static final String TAG = "ConnectionTiming";
+
+    static final EventListener.Factory FACTORY =
+            call -> new ConnectionTimingListener("HEAD".equals(call.request().method()));
+
+    // Totals across calls
+    private static final AtomicInteger newConnectionCount = new AtomicInteger();
+    private static final AtomicInteger pooledConnectionCount = new AtomicInteger();
+    private static final AtomicLong setupNanos = new AtomicLong();
+    private static final AtomicLong newConnectionHeadersNanos = new AtomicLong();
+    private static final AtomicLong pooledConnectionHeadersNanos = new AtomicLong();
+    private static final AtomicLong warmUpSetupNanos = new AtomicLong();
+
+    /** Warm-up calls only count towards the setup time they took off later calls */
+    private final boolean warmUp;
+    private long callStart = 0;
+    private long setupStart = 0;
+    private long setupEnd = 0;
+    private boolean recorded = false;
+
+    private ConnectionTimingListener(boolean warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        if (setupStart == 0) setupStart = System.nanoTime();
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                             @NonNull Proxy proxy) {
+        if (setupStart == 0) setupStart = System.nanoTime();
+    }
+
+    @Override
+    public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress,
+                           @NonNull Proxy proxy, Protocol protocol) {
+        setupEnd = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        // Only the first response of a call; not those of redirects or retries that follow
+        if (recorded) return;
+        recorded = true;
+
+        final long headersNanos = System.nanoTime() - callStart;
+        final boolean newConnection = setupEnd != 0;
+        if (warmUp) {
+            if (newConnection) warmUpSetupNanos.addAndGet(setupEnd - setupStart);
+            Log.d(TAG, "Warm-up connection set up in " + millis(setupEnd - setupStart) + "ms");
+        } else if (newConnection) {
+            newConnectionCount.incrementAndGet();
+            setupNanos.addAndGet(setupEnd - setupStart);
+            newConnectionHeadersNanos.addAndGet(headersNanos);
+            Log.d(TAG, "Response headers after " + millis(headersNanos) + "ms on a new " +
+                    "connection, " + millis(setupEnd - setupStart) + "ms of which setting it up");
+        } else {
+            pooledConnectionCount.incrementAndGet();
+            pooledConnectionHeadersNanos.addAndGet(headersNanos);
+            Log.d(TAG, "Response headers after " + millis(headersNanos) +
+                    "ms on a pooled connection");
+        }
+    }
+
+    static int getNewConnectionCount() {
+        return newConnectionCount.get();
+    }
+
+    static int getPooledConnectionCount() {
+        return pooledConnectionCount.get();
+    }
+
+    /** Average time to set up a new connection, in milliseconds */
+    static long getAverageSetupMillis() {
+        return average(setupNanos.get(), newConnectionCount.get());
+    }
+
+    /** Average time until the response headers on a new connection, in milliseconds */
+    static long getAverageNewConnectionMillis() {
+        return average(newConnectionHeadersNanos.get(), newConnectionCount.get());
+    }
+
+    /** Average time until the response headers on a pooled connection, in milliseconds */
+    static long getAveragePooledConnectionMillis() {
+        return average(pooledConnectionHeadersNanos.get(), pooledConnectionCount.get());
+    }
+
+    /** Time spent setting up connections ahead of time by warm-up calls, in milliseconds */
+    static long getWarmUpSetupMillis() {
+        return millis(warmUpSetupNanos.get());
+    }
+
+    private static long average(long totalNanos, int count) {
+        return count == 0 ? 0 : millis(totalNanos / count);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive int keys to non-negative int values, using open addressing with
+ * linear probing. Unlike {@code HashMap<Integer, Integer>} neither keys nor values are ever
+ * boxed, and unlike {@code SparseIntArray} insertion does not shift arrays, so it suits tens of
+ * thousands of arcade ids. Empty slots are marked by a value of {@link #NONE}. Not thread-safe.
+ */
+final class IntMap {
+    /** Returned for keys that are not present */
+    static final int NONE = -1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int size = 0;
+
+    IntMap() {
+        keys = new int[MIN_CAPACITY];
+        values = newValues(MIN_CAPACITY);
+    }
+
+    /**
+     * Returns the value for the given key, or {@link #NONE} if it is not present.
+     */
+    int get(int key) {
+        final int mask = keys.length - 1;
+        for (int i = hash(key) & mask; values[i] != NONE; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+        }
+        return NONE;
+    }
+
+    /**
+     * Associate the given non-negative value with the given key.
+     * @return The previous value for the key, or {@link #NONE}
+     */
+    int put(int key, int value) {
+        if (value < 0) throw new IllegalArgumentException("Negative values are not supported");
+        final int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (; values[i] != NONE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                final int previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) resize(keys.length * 2);
+        return NONE;
+    }
+
+    /**
+     * Remove the given key.
+     * @return The removed value, or {@link #NONE} if the key was not present
+     */
+    int remove(int key) {
+        final int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (; values[i] != NONE; i = (i + 1) & mask) {
+            if (keys[i] == key) break;
+        }
+        if (values[i] == NONE) return NONE;
+        final int removed = values[i];
+
+        // Shift later entries of the probe sequence back, so that no lookup stops early
+        int gap = i;
+        for (int j = (i + 1) & mask; values[j] != NONE; j = (j + 1) & mask) {
+            final int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = NONE;
+        size--;
+        return removed;
+    }
+
+    private void resize(int capacity) {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+        keys = new int[capacity];
+        values = newValues(capacity);
+        final int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; ++j) {
+            if (oldValues[j] == NONE) continue;
+            int i = hash(oldKeys[j]) & mask;
+            while (values[i] != NONE) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private static int[] newValues(int capacity) {
+        final int[] values = new int[capacity];
+        Arrays.fill(values, NONE);
+        return values;
+    }
+
+    private static int hash(int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
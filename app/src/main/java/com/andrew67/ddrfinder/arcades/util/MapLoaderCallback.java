@@ -4,6 +4,9 @@ import androidx.annotation.NonNull;
 import androidx.annotation.StringRes;
 
 import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+
+import java.util.List;
 
 public interface MapLoaderCallback {
     /**
@@ -11,8 +14,18 @@ public interface MapLoaderCallback {
      * Use for e.g. starting a progress bar.
      */
     void onPreLoad();
+    /**
+     * Called while a response is still downloading, with each chunk of locations parsed so far.
+     * The complete result still follows through {@link #onLocationsLoaded(ApiResult)}.
+     */
+    default void onLocationsChunk(@NonNull List<ArcadeLocation> locations) { }
     /** Called on success loading arcade data. */
     void onLocationsLoaded(@NonNull ApiResult result);
+    /**
+     * Called instead of {@link #onLocationsLoaded(ApiResult)} when revalidating data the caller
+     * already has, and the server confirmed it has not changed.
+     */
+    default void onNotModified() { }
     /** Called on error loading arcade data. */
     void onError(int errorCode, @StringRes int errorMessageResourceId);
     /**
@@ -23,134 +23,795 @@
 
 package com.andrew67.ddrfinder.arcades.util;
 
-import android.os.AsyncTask;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.AnyThread;
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 import android.util.Log;
 
 import com.andrew67.ddrfinder.BuildConfig;
 import com.andrew67.ddrfinder.R;
 import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.DataSource;
+import com.andrew67.ddrfinder.arcades.model.Deprecations;
 import com.google.android.gms.maps.model.LatLngBounds;
 import com.squareup.moshi.JsonAdapter;
-import com.squareup.moshi.Moshi;
+import com.squareup.moshi.JsonReader;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Call;
 import okhttp3.HttpUrl;
+import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
 
 /**
- * Loads arcades for given bounds box and data source using the DDR Finder API on the server
+ * Loads arcades for given bounds box and data source using the DDR Finder API on the server.
+ * Requests run on a small thread pool, are retried on transient failures, and parse responses
+ * (binary or JSON) as they stream in. Several boxes can be loaded in one batch request.
  */
-public class NetworkMapLoader extends AsyncTask<LatLngBounds, Void, ApiResult> {
-    private static final HttpUrl apiUrl = HttpUrl.get(BuildConfig.API_BASE_URL);
-    private static final OkHttpClient client = new OkHttpClient();
-    private static final JsonAdapter<ApiResult> jsonAdapter = new Moshi.Builder().build()
-            .adapter(ApiResult.class);
+public class NetworkMapLoader {
+    private static final String TAG = "NetworkMapLoader";
+    private static volatile HttpUrl apiUrl = HttpUrl.get(BuildConfig.API_BASE_URL);
+    private static volatile OkHttpClient client = new OkHttpClient.Builder()
+            .eventListenerFactory(ConnectionTimingListener.FACTORY)
+            .build();
+    private static final AtomicBoolean warmedUp = new AtomicBoolean();
+    private static final long HTTP_CACHE_MAX_BYTES = 10 * 1024 * 1024;
+    /** Cached responses are never used without asking the server whether they are current */
+    private static final CacheControl ALWAYS_REVALIDATE =
+            new CacheControl.Builder().maxAge(0, TimeUnit.SECONDS).build();
+    private static final JsonReader.Options resultFields = JsonReader.Options.of(
+            "error", "errorCode", "sources", "locations", "deprecations",
+            "dataVersion", "delta", "removed", "results");
+    /** Binary results are preferred; servers that do not offer them answer with JSON as before */
+    private static final String ACCEPT = BinaryApiResultReader.MEDIA_TYPE +
+            ", application/json;q=0.9";
+    /** Locations are passed on to the callback this many at a time while parsing */
+    private static final int CHUNK_SIZE = 200;
+
+    /** Boxes per batch request */
+    static final int MAX_BATCH_BOXES = 16;
+    /** Cleared once the server turns out not to support batch requests */
+    private static volatile boolean batchSupported = true;
+
+    /** Enough for a viewport's requests not to queue behind one slow response */
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final ScheduledExecutorService executor =
+            Executors.newScheduledThreadPool(MAX_CONCURRENT_REQUESTS);
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /** Attempts per request for failures likely to pass, i.e. connection errors and 5xx */
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_BASE_DELAY_MILLIS = 500;
+    private static final long RETRY_MAX_DELAY_MILLIS = 4000;
+    /** How long to hold off after being rate limited, unless the server says otherwise */
+    private static final long RATE_LIMIT_COOLDOWN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final CircuitBreaker circuitBreaker = new CircuitBreaker(
+            5, TimeUnit.SECONDS.toMillis(15), TimeUnit.MINUTES.toMillis(5));
+
+    // Request outcome counters
+    private static final AtomicInteger succeededCount = new AtomicInteger();
+    private static final AtomicInteger retriedCount = new AtomicInteger();
+    private static final AtomicInteger failedCount = new AtomicInteger();
+    private static final AtomicInteger rateLimitedCount = new AtomicInteger();
+    private static final AtomicInteger rejectedCount = new AtomicInteger();
 
     private final String datasrc;
     private final MapLoaderCallback callback;
+    private final boolean revalidation;
+    private long sinceDataVersion = 0;
+    private volatile boolean cancelled = false;
+    /** Set when a revalidation was answered with a 304, and no result was parsed */
+    private volatile boolean notModified = false;
+    /** Set when the server rate limited the request with an HTTP 429 */
+    private volatile boolean rateLimited = false;
+    @Nullable
+    private volatile Call call = null;
+    /** Results loaded so far, kept across attempts so that a retry resumes after them */
+    private final List<ApiResult> results = new ArrayList<>();
+    /** Set once locations of the response being read have been passed on in chunks */
+    private boolean chunkPosted = false;
 
     /**
      * Initialize a NetworkMapLoader instance
      * @param datasrc The data source to use for arcade locations
      * @param callback The callback to use in the UI thread.
+     * @param revalidation Whether the caller already has data for the box. If the server confirms
+     *                     it has not changed, the response is not parsed and
+     *                     {@link MapLoaderCallback#onNotModified()} is called instead.
      */
-    NetworkMapLoader(@NonNull String datasrc, @NonNull MapLoaderCallback callback) {
-        super();
+    NetworkMapLoader(@NonNull String datasrc, @NonNull MapLoaderCallback callback,
+                     boolean revalidation) {
         this.datasrc = datasrc;
         this.callback = callback;
+        this.revalidation = revalidation;
     }
 
-    @Override
-    protected void onPreExecute() {
-        super.onPreExecute();
-        callback.onPreLoad();
+    /**
+     * Ask the server only for the changes since the given dataset version, which the caller
+     * already has for the whole box. Servers that support it answer with a delta result
+     * (see {@link ApiResult#isDelta()}); others answer with the complete result as usual.
+     * Must be called before {@link #execute(List)}.
+     */
+    void setSinceDataVersion(long sinceDataVersion) {
+        this.sinceDataVersion = sinceDataVersion;
     }
 
-    @Override
-    protected ApiResult doInBackground(LatLngBounds... boxes) {
-        ApiResult result = null;
-        try {
-            if (boxes.length == 0) throw new IllegalArgumentException("No boxes passed to doInBackground");
-            final LatLngBounds box = boxes[0];
-
-            final HttpUrl requestUrl = apiUrl.newBuilder()
-                    .addQueryParameter("version", "30")
-                    .addQueryParameter("canHandleLargeDataset", "")
-                    .addQueryParameter("showDeprecationFlags", "")
-                    .addQueryParameter("datasrc", datasrc)
-                    .addQueryParameter("latupper", "" + box.northeast.latitude)
-                    .addQueryParameter("lngupper", "" + box.northeast.longitude)
-                    .addQueryParameter("latlower", "" + box.southwest.latitude)
-                    .addQueryParameter("lnglower", "" + box.southwest.longitude)
-                    .build();
+    /**
+     * Attach an on-disk HTTP cache in the given directory to the shared client.
+     * Only requests started afterwards use it.
+     */
+    static void attachHttpCache(@NonNull File directory) {
+        if (client.cache() != null) return;
+        client = client.newBuilder().cache(new Cache(directory, HTTP_CACHE_MAX_BYTES)).build();
+    }
 
-            if (BuildConfig.DEBUG) Log.d("NetworkMapLoader", "Request URL: " + requestUrl);
-            else Log.d("NetworkMapLoader", "Performing URL request (use debug build to see URL)");
-            final Request get = new Request.Builder()
-                    .header("User-Agent", BuildConfig.APPLICATION_ID + " " + BuildConfig.VERSION_NAME
-                            + "/Android?SDK=" + Build.VERSION.SDK_INT)
-                    .url(requestUrl)
+    /**
+     * Set up a connection to the server in the background, so that it is pooled and ready by the
+     * time the first request is made: DNS, TCP and TLS are then off the critical path to the first
+     * locations. Only the first call has any effect.
+     */
+    @AnyThread
+    static void warmUp() {
+        if (circuitBreaker.isOpen() || !warmedUp.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            final Request head = new Request.Builder()
+                    .header("User-Agent", getUserAgent())
+                    .url(apiUrl)
+                    .head()
+                    .cacheControl(CacheControl.FORCE_NETWORK)
                     .build();
+            try (Response response = client.newCall(head).execute()) {
+                Log.d(TAG, "Connection warmed up (status code " + response.code() + ")");
+            } catch (IOException e) {
+                // The first request sets up its own connection instead
+                Log.d(TAG, "Connection warm-up failed", e);
+            }
+        });
+    }
+
+    /**
+     * Whether requests are currently held off because the server keeps failing or rate limits us.
+     * Callers should serve what they have cached meanwhile.
+     */
+    static boolean isCircuitOpen() {
+        return circuitBreaker.isOpen();
+    }
+
+    /**
+     * Returns the network statistics since the process started, for diagnostics.
+     */
+    @NonNull
+    static NetworkStats getNetworkStats() {
+        final Cache cache = client.cache();
+        return new NetworkStats(succeededCount.get(), retriedCount.get(), failedCount.get(),
+                rateLimitedCount.get(), rejectedCount.get(),
+                cache != null ? cache.requestCount() : 0,
+                cache != null ? cache.networkCount() : 0,
+                cache != null ? cache.hitCount() : 0,
+                ConnectionTimingListener.getNewConnectionCount(),
+                ConnectionTimingListener.getPooledConnectionCount(),
+                ConnectionTimingListener.getAverageSetupMillis(),
+                ConnectionTimingListener.getAverageNewConnectionMillis(),
+                ConnectionTimingListener.getAveragePooledConnectionMillis(),
+                ConnectionTimingListener.getWarmUpSetupMillis());
+    }
+
+    /**
+     * Whether several boxes can be loaded in a single request.
+     * True until the server turns out not to support batch requests.
+     */
+    static boolean isBatchSupported() {
+        return batchSupported;
+    }
+
+    @VisibleForTesting
+    static void setBatchSupported(boolean supported) {
+        batchSupported = supported;
+    }
+
+    /**
+     * Send requests to the given API URL instead, e.g. a local server in tests.
+     */
+    @VisibleForTesting
+    static void setApiUrl(@NonNull HttpUrl url) {
+        apiUrl = url;
+    }
+
+    /**
+     * Start loading the given boxes in the background. Callbacks are made on the main thread,
+     * with one {@link MapLoaderCallback#onLocationsLoaded(ApiResult)} per box loaded.
+     */
+    @MainThread
+    void execute(@NonNull List<LatLngBounds> boxes) {
+        callback.onPreLoad();
+        executor.execute(() -> attempt(boxes, 1));
+    }
 
-            final Response response = client.newCall(get).execute();
-            final int statusCode = response.code();
-            Log.d("NetworkMapLoader", "Status code: " + statusCode);
-
-            // Data/error loaded OK
-            if (statusCode == 200 || statusCode == 400) {
-                final ResponseBody responseBody = response.body();
-                result = jsonAdapter.fromJson(responseBody.source());
-                responseBody.close();
-                assert result != null;
-                result.setBounds(box);
-                Log.d("NetworkMapLoader", "Response JSON parse complete");
+    /**
+     * Cancel this request, aborting its network call if it has started.
+     * No further callbacks are made, not even {@link MapLoaderCallback#onFinish()}.
+     */
+    @MainThread
+    void cancel() {
+        cancelled = true;
+        final Call call = this.call;
+        if (call != null) call.cancel();
+    }
+
+    /**
+     * Make one attempt at loading the given boxes, then either deliver its outcome
+     * or schedule a retry. The circuit breaker is asked once, before the first attempt,
+     * and told the outcome once retries are over, so a trial request may retry too.
+     */
+    @WorkerThread
+    private void attempt(@NonNull List<LatLngBounds> boxes, int attempt) {
+        // Superseded while waiting for a thread or a retry
+        if (cancelled) return;
+
+        boolean failed = true;
+        int failureCode = ApiResult.ERROR_UNEXPECTED;
+        if (attempt == 1 && !circuitBreaker.allowRequest()) {
+            Log.d(TAG, "Circuit open; request rejected");
+            rejectedCount.incrementAndGet();
+        } else try {
+            load(boxes);
+            failed = false;
+            if (isRateLimited()) {
+                failureCode = ApiResult.ERROR_REQUESTS;
+            } else {
+                circuitBreaker.onSuccess();
+                succeededCount.incrementAndGet();
             }
-            // Unexpected error code
-            else {
-                throw new RuntimeException("Unexpected HTTP status code: " + statusCode);
+        } catch (RetryableException e) {
+            if (cancelled) return;
+            if (attempt < MAX_ATTEMPTS) {
+                final long delay = retryDelayMillis(attempt);
+                Log.d(TAG, "Attempt " + attempt + " failed (" + e.getMessage() +
+                        "); retrying in " + delay + "ms");
+                retriedCount.incrementAndGet();
+                executor.schedule(() -> attempt(boxes, attempt + 1), delay,
+                        TimeUnit.MILLISECONDS);
+                return;
             }
+            Log.w(TAG, "Giving up after " + attempt + " attempts", e);
+            circuitBreaker.onFailure();
+            failedCount.incrementAndGet();
+        } catch (Exception e) {
+            if (cancelled) return;
+            Log.w(TAG, "Unexpected failure loading locations", e);
+            circuitBreaker.onFailure();
+            failedCount.incrementAndGet();
         }
-        catch(Exception e)
-        {
-            e.printStackTrace();
+
+        final boolean loadFailed = failed;
+        final int loadFailureCode = failureCode;
+        mainHandler.post(() -> {
+            if (!cancelled) deliver(loadFailed, loadFailureCode);
+        });
+    }
+
+    /** Results loaded so far, see {@link #load(List)} */
+    @VisibleForTesting
+    @NonNull
+    List<ApiResult> getResults() {
+        return results;
+    }
+
+    /** Whether a revalidation was answered with a 304, see {@link #load(List)} */
+    @VisibleForTesting
+    boolean isNotModified() {
+        return notModified;
+    }
+
+    private boolean isRateLimited() {
+        if (rateLimited) return true;
+        for (ApiResult result : results) {
+            if (result.getErrorCode() == ApiResult.ERROR_REQUESTS) return true;
         }
+        return false;
+    }
+
+    /**
+     * Exponential backoff with jitter, so that clients that failed together do not retry together
+     */
+    private static long retryDelayMillis(int attempt) {
+        final long cap = Math.min(RETRY_MAX_DELAY_MILLIS,
+                RETRY_BASE_DELAY_MILLIS << (attempt - 1));
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    /**
+     * Request and parse the given boxes, adding to {@link #results} those not loaded yet.
+     * Stops early on a 304 or a rate limit.
+     * @throws RetryableException On failures likely to pass: connection errors and 5xx, and
+     *                            responses cut short before any of their locations were passed on
+     */
+    @VisibleForTesting
+    @WorkerThread
+    void load(@NonNull List<LatLngBounds> boxes) throws RetryableException, IOException {
+        if (results.isEmpty() && boxes.size() > 1 && batchSupported) {
+            if (loadBatch(boxes)) return;
+        }
+        // A 304 for one box of several says nothing of the others, so their cached copies are read
+        final boolean skipNotModified = boxes.size() == 1;
+        for (int i = results.size(); i < boxes.size(); ++i) {
+            final ApiResult result = loadSingle(boxes.get(i), skipNotModified);
+            if (result == null) return;
+            results.add(result);
+            if (result.getErrorCode() == ApiResult.ERROR_REQUESTS) return;
+        }
+    }
+
+    /**
+     * Request and parse the given box.
+     * @param skipNotModified Whether a revalidation answered with a 304 ends the request
+     * @return The result, or null if there is none to parse (a 304 or a rate limit)
+     */
+    @WorkerThread
+    @Nullable
+    private ApiResult loadSingle(@NonNull LatLngBounds box, boolean skipNotModified)
+            throws RetryableException, IOException {
+        final HttpUrl.Builder requestUrlBuilder = newRequestUrlBuilder()
+                .addQueryParameter("latupper", "" + box.northeast.latitude)
+                .addQueryParameter("lngupper", "" + box.northeast.longitude)
+                .addQueryParameter("latlower", "" + box.southwest.latitude)
+                .addQueryParameter("lnglower", "" + box.southwest.longitude);
+        if (sinceDataVersion != 0) {
+            requestUrlBuilder.addQueryParameter("since", "" + sinceDataVersion);
+        }
+
+        final Response response = send(requestUrlBuilder.build(), ACCEPT);
+        if (response == null) return null;
+
+        // Unchanged since the caller's copy was fetched; skip parsing it again
+        final Response networkResponse = response.networkResponse();
+        if (revalidation && skipNotModified && networkResponse != null &&
+                networkResponse.code() == 304) {
+            response.close();
+            Log.d(TAG, "Not modified");
+            notModified = true;
+            return null;
+        }
+
+        // Unexpected error code
+        if (response.code() != 200 && response.code() != 400) {
+            response.close();
+            throw new RuntimeException("Unexpected HTTP status code: " + response.code());
+        }
+
+        // Data/error loaded OK
+        final ResponseBody responseBody = response.body();
+        final ApiResult result;
+        chunkPosted = false;
+        try {
+            result = isBinary(responseBody.contentType()) ?
+                    BinaryApiResultReader.read(responseBody.source(), CHUNK_SIZE, this::postChunk) :
+                    parse(responseBody.source(), null);
+        } catch (IOException e) {
+            // E.g. the connection dropped; locations passed on already would be passed on again
+            if (chunkPosted) throw e;
+            throw new RetryableException("reading response failed", e);
+        } finally {
+            responseBody.close();
+        }
+        result.setBounds(box);
+        result.setDataSrc(datasrc);
+        result.setFetchedAt(System.currentTimeMillis());
+        Log.d(TAG, "Response parse complete");
+        if (result.getErrorCode() == ApiResult.ERROR_REQUESTS) onRateLimited(null);
         return result;
     }
 
-    @Override
-    protected void onPostExecute(@Nullable ApiResult result) {
-        super.onPostExecute(result);
+    /**
+     * Request the given boxes in one call. The server answers with a "results" array holding one
+     * result per box, in order, or with a single error result that applies to all of them.
+     * Batches are always JSON.
+     * @return Whether the boxes were handled; false if the server does not support batches
+     */
+    @WorkerThread
+    private boolean loadBatch(@NonNull List<LatLngBounds> boxes)
+            throws RetryableException, IOException {
+        final HttpUrl.Builder requestUrlBuilder = newRequestUrlBuilder()
+                .addQueryParameter("batch", "");
+        for (LatLngBounds box : boxes) {
+            requestUrlBuilder.addQueryParameter("box",
+                    box.southwest.latitude + "," + box.southwest.longitude + "," +
+                    box.northeast.latitude + "," + box.northeast.longitude);
+        }
+        if (sinceDataVersion != 0) {
+            requestUrlBuilder.addQueryParameter("since", "" + sinceDataVersion);
+        }
+
+        final Response response = send(requestUrlBuilder.build(), "application/json");
+        if (response == null) return true;
+
+        // Unchanged since the caller's copy of every box was fetched
+        final Response networkResponse = response.networkResponse();
+        if (revalidation && networkResponse != null &&
+                networkResponse.code() == 304) {
+            response.close();
+            Log.d(TAG, "Batch not modified");
+            notModified = true;
+            return true;
+        }
+        if (response.code() != 200 && response.code() != 400) {
+            response.close();
+            throw new RuntimeException("Unexpected HTTP status code: " + response.code());
+        }
+
+        final List<ApiResult> batchResults = new ArrayList<>(boxes.size());
+        final ResponseBody responseBody = response.body();
+        final ApiResult outer;
+        chunkPosted = false;
+        try {
+            outer = parse(responseBody.source(), batchResults);
+        } catch (IOException e) {
+            // E.g. the connection dropped; locations passed on already would be passed on again
+            if (chunkPosted) throw e;
+            throw new RetryableException("reading response failed", e);
+        } finally {
+            responseBody.close();
+        }
+
+        if (batchResults.isEmpty() && outer.getErrorCode() != ApiResult.ERROR_OK) {
+            // Without batch support, the server finds the single-box parameters missing
+            if (outer.getErrorCode() == ApiResult.ERROR_REQUIRED_FIELD) {
+                Log.d(TAG, "Batch requests not supported; requesting boxes one by one");
+                batchSupported = false;
+                return false;
+            }
+            if (outer.getErrorCode() == ApiResult.ERROR_REQUESTS) onRateLimited(null);
+            results.add(outer);
+            return true;
+        }
+        if (batchResults.size() != boxes.size()) {
+            throw new IOException("Batch returned " + batchResults.size() + " results for " +
+                    boxes.size() + " boxes");
+        }
+
+        final long fetchedAt = System.currentTimeMillis();
+        for (int i = 0; i < boxes.size(); ++i) {
+            final ApiResult result = batchResults.get(i);
+            result.setBounds(boxes.get(i));
+            result.setDataSrc(datasrc);
+            result.setFetchedAt(fetchedAt);
+            if (result.getErrorCode() == ApiResult.ERROR_REQUESTS) onRateLimited(null);
+        }
+        Log.d(TAG, "Batch of " + boxes.size() + " boxes parsed");
+        results.addAll(batchResults);
+        return true;
+    }
+
+    @NonNull
+    private static String getUserAgent() {
+        return BuildConfig.APPLICATION_ID + " " + BuildConfig.VERSION_NAME
+                + "/Android?SDK=" + Build.VERSION.SDK_INT;
+    }
+
+    @NonNull
+    private HttpUrl.Builder newRequestUrlBuilder() {
+        return apiUrl.newBuilder()
+                .addQueryParameter("version", "30")
+                .addQueryParameter("canHandleLargeDataset", "")
+                .addQueryParameter("showDeprecationFlags", "")
+                .addQueryParameter("datasrc", datasrc);
+    }
+
+    /**
+     * Make the request for the given URL. Rate limits are recorded as such.
+     * @return The response, or null if rate limited
+     * @throws RetryableException On connection errors and 5xx
+     */
+    @WorkerThread
+    @Nullable
+    private Response send(@NonNull HttpUrl requestUrl, @NonNull String accept)
+            throws RetryableException {
+        if (BuildConfig.DEBUG) Log.d(TAG, "Request URL: " + requestUrl);
+        else Log.d(TAG, "Performing URL request (use debug build to see URL)");
+        final Request get = new Request.Builder()
+                .header("User-Agent", getUserAgent())
+                .header("Accept", accept)
+                .url(requestUrl)
+                .cacheControl(ALWAYS_REVALIDATE)
+                .build();
+
+        final Call call = client.newCall(get);
+        this.call = call;
+        // Cancelled before the call was visible to cancel()
+        if (cancelled) call.cancel();
+
+        final Response response;
+        try {
+            response = call.execute();
+        } catch (IOException e) {
+            throw new RetryableException("connection failed", e);
+        }
+        final int statusCode = response.code();
+        Log.d(TAG, "Status code: " + statusCode);
+
+        if (statusCode == 429) {
+            response.close();
+            rateLimited = true;
+            onRateLimited(response.header("Retry-After"));
+            return null;
+        }
+        if (statusCode >= 500) {
+            response.close();
+            throw new RetryableException("HTTP status code " + statusCode, null);
+        }
+        return response;
+    }
+
+    /**
+     * Hold off all requests for as long as the server asked (in seconds), or a default cooldown.
+     */
+    private static void onRateLimited(@Nullable String retryAfter) {
+        long cooldownMillis = RATE_LIMIT_COOLDOWN_MILLIS;
+        if (retryAfter != null) {
+            try {
+                cooldownMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException e) {
+                // HTTP dates are not worth parsing here; keep the default
+            }
+        }
+        Log.w(TAG, "Rate limited; holding off requests for " + cooldownMillis + "ms");
+        rateLimitedCount.incrementAndGet();
+        circuitBreaker.openFor(cooldownMillis);
+    }
+
+    /**
+     * Parse an API result as it streams in, posting its locations to the callback in chunks.
+     * @param batchResults If given, receives the complete per-box results found in a batch
+     *                     response's "results" array
+     */
+    @WorkerThread
+    @NonNull
+    private ApiResult parse(@NonNull BufferedSource source,
+                            @Nullable List<ApiResult> batchResults) throws IOException {
+        return parse(JsonReader.of(source), batchResults);
+    }
+
+    @WorkerThread
+    @NonNull
+    private ApiResult parse(@NonNull JsonReader reader,
+                            @Nullable List<ApiResult> batchResults) throws IOException {
+        String error = null;
+        Integer errorCode = null;
+        List<DataSource> sources = null;
+        List<ArcadeLocation> locations = null;
+        Deprecations deprecations = null;
+        Long dataVersion = null;
+        Boolean delta = null;
+        List<Integer> removed = null;
 
-        if (result == null) {
-            callback.onError(ApiResult.ERROR_UNEXPECTED, R.string.error_api_unexpected);
-        } else {
-            switch(result.getErrorCode()) {
-                case ApiResult.ERROR_OK:
-                    if (result.getLocations().isEmpty()) {
-                        callback.onError(ApiResult.ERROR_NO_RESULTS, R.string.area_no_results);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.selectName(resultFields)) {
+                case 0:
+                    error = ApiJsonAdapters.nextString(reader);
+                    break;
+                case 1:
+                    errorCode = ApiJsonAdapters.nextInteger(reader);
+                    break;
+                case 2:
+                    sources = ApiJsonAdapters.nextSources(reader);
+                    break;
+                case 3:
+                    if (reader.peek() == JsonReader.Token.NULL) {
+                        reader.nextNull();
+                        break;
+                    }
+                    locations = new ArrayList<>();
+                    List<ArcadeLocation> chunk = new ArrayList<>(CHUNK_SIZE);
+                    final JsonAdapter<ArcadeLocation> locationAdapter =
+                            ApiJsonAdapters.newLocationAdapter();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        final ArcadeLocation location = locationAdapter.fromJson(reader);
+                        locations.add(location);
+                        chunk.add(location);
+                        if (chunk.size() == CHUNK_SIZE) {
+                            postChunk(chunk);
+                            chunk = new ArrayList<>(CHUNK_SIZE);
+                        }
                     }
-                    callback.onLocationsLoaded(result);
+                    reader.endArray();
+                    if (!chunk.isEmpty()) postChunk(chunk);
+                    break;
+                case 4:
+                    deprecations = ApiJsonAdapters.DEPRECATIONS.fromJson(reader);
                     break;
-                case ApiResult.ERROR_OVERSIZED_BOX:
-                    callback.onError(ApiResult.ERROR_OVERSIZED_BOX, R.string.error_zoom);
+                case 5:
+                    dataVersion = ApiJsonAdapters.nextLong(reader);
                     break;
-                case ApiResult.ERROR_DATA_SOURCE:
-                    callback.onError(ApiResult.ERROR_DATA_SOURCE, R.string.error_datasrc);
+                case 6:
+                    delta = ApiJsonAdapters.nextBoolean(reader);
                     break;
-                case ApiResult.ERROR_CLIENT_API_VERSION:
-                    callback.onError(ApiResult.ERROR_CLIENT_API_VERSION, R.string.error_api_ver);
+                case 7:
+                    removed = ApiJsonAdapters.nextIds(reader);
+                    break;
+                case 8:
+                    if (batchResults == null || reader.peek() == JsonReader.Token.NULL) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) batchResults.add(parse(reader, null));
+                    reader.endArray();
                     break;
                 default:
-                    callback.onError(ApiResult.ERROR_UNEXPECTED, R.string.error_api);
+                    reader.skipName();
+                    reader.skipValue();
                     break;
             }
         }
+        reader.endObject();
+        return new ApiResult(error, errorCode, sources, locations, deprecations,
+                dataVersion, delta, removed);
+    }
+
+    private static boolean isBinary(@Nullable MediaType contentType) {
+        return contentType != null && BinaryApiResultReader.MEDIA_TYPE.equals(
+                contentType.type() + "/" + contentType.subtype());
+    }
+
+    @WorkerThread
+    private void postChunk(@NonNull List<ArcadeLocation> chunk) {
+        chunkPosted = true;
+        mainHandler.post(() -> {
+            if (!cancelled) callback.onLocationsChunk(chunk);
+        });
+    }
+
+    /**
+     * Deliver the results loaded, then the failure if the boxes could not all be loaded.
+     * An area with no results is reported once, and only if none of the boxes had any.
+     */
+    @MainThread
+    private void deliver(boolean failed, int failureCode) {
+        if (notModified) {
+            callback.onNotModified();
+            callback.onFinish();
+            return;
+        }
+
+        boolean anyLocations = false;
+        boolean reportedError = false;
+        for (ApiResult result : results) {
+            if (result.getErrorCode() == ApiResult.ERROR_OK) {
+                anyLocations |= !result.getLocations().isEmpty();
+                callback.onLocationsLoaded(result);
+            } else if (!reportedError) {
+                // The same error tends to apply to every box; report it once
+                reportError(result.getErrorCode());
+                reportedError = true;
+            }
+        }
+
+        if (!reportedError) {
+            if (failed || rateLimited) {
+                if (failureCode == ApiResult.ERROR_REQUESTS) {
+                    callback.onError(ApiResult.ERROR_REQUESTS, R.string.error_api);
+                } else {
+                    callback.onError(ApiResult.ERROR_UNEXPECTED, R.string.error_api_unexpected);
+                }
+            } else if (!anyLocations) {
+                callback.onError(ApiResult.ERROR_NO_RESULTS, R.string.area_no_results);
+            }
+        }
 
         callback.onFinish();
     }
+
+    @MainThread
+    private void reportError(int errorCode) {
+        switch(errorCode) {
+            case ApiResult.ERROR_OVERSIZED_BOX:
+                callback.onError(ApiResult.ERROR_OVERSIZED_BOX, R.string.error_zoom);
+                break;
+            case ApiResult.ERROR_DATA_SOURCE:
+                callback.onError(ApiResult.ERROR_DATA_SOURCE, R.string.error_datasrc);
+                break;
+            case ApiResult.ERROR_CLIENT_API_VERSION:
+                callback.onError(ApiResult.ERROR_CLIENT_API_VERSION, R.string.error_api_ver);
+                break;
+            case ApiResult.ERROR_REQUESTS:
+                callback.onError(ApiResult.ERROR_REQUESTS, R.string.error_api);
+                break;
+            default:
+                callback.onError(ApiResult.ERROR_UNEXPECTED, R.string.error_api);
+                break;
+        }
+    }
+
+    /** A failure worth another attempt */
+    private static final class RetryableException extends Exception {
+        RetryableException(@NonNull String message, @Nullable Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Network statistics. Each request ends up succeeded, failed (after any retries),
+     * rate limited by the server, or rejected without trying while the circuit breaker was open;
+     * retried counts the extra attempts. The HTTP cache counts requests, those that went to the
+     * network, and hits (including conditional ones the server answered with a 304).
+     * Connections count calls that set up a new connection and those that used a pooled one,
+     * with their average times; see {@link ConnectionTimingListener}.
+     */
+    public static final class NetworkStats {
+        public final int succeeded;
+        public final int retried;
+        public final int failed;
+        public final int rateLimited;
+        public final int rejected;
+        public final int httpCacheRequests;
+        public final int httpCacheNetwork;
+        public final int httpCacheHits;
+        public final int newConnections;
+        public final int pooledConnections;
+        public final long averageSetupMillis;
+        public final long averageNewConnectionMillis;
+        public final long averagePooledConnectionMillis;
+        public final long warmUpSetupMillis;
+
+        NetworkStats(int succeeded, int retried, int failed, int rateLimited, int rejected,
+                     int httpCacheRequests, int httpCacheNetwork, int httpCacheHits,
+                     int newConnections, int pooledConnections, long averageSetupMillis,
+                     long averageNewConnectionMillis, long averagePooledConnectionMillis,
+                     long warmUpSetupMillis) {
+            this.succeeded = succeeded;
+            this.retried = retried;
+            this.failed = failed;
+            this.rateLimited = rateLimited;
+            this.rejected = rejected;
+            this.httpCacheRequests = httpCacheRequests;
+            this.httpCacheNetwork = httpCacheNetwork;
+            this.httpCacheHits = httpCacheHits;
+            this.newConnections = newConnections;
+            this.pooledConnections = pooledConnections;
+            this.averageSetupMillis = averageSetupMillis;
+            this.averageNewConnectionMillis = averageNewConnectionMillis;
+            this.averagePooledConnectionMillis = averagePooledConnectionMillis;
+            this.warmUpSetupMillis = warmUpSetupMillis;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "succeeded=%d retried=%d failed=%d rateLimited=%d rejected=%d " +
+                            "httpCache=%d/%d hits (%d network) " +
+                            "connections: %d new (%dms setup, %dms to headers) " +
+                            "%d pooled (%dms to headers), %dms set up by warm-up",
+                    succeeded, retried, failed, rateLimited, rejected,
+                    httpCacheHits, httpCacheRequests, httpCacheNetwork,
+                    newConnections, averageSetupMillis, averageNewConnectionMillis,
+                    pooledConnections, averagePooledConnectionMillis, warmUpSetupMillis);
+        }
+    }
 }
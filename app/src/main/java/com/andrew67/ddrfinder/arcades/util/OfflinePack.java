@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.DataSource;
+import com.andrew67.ddrfinder.arcades.model.Deprecations;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The complete dataset of one data source, stored in a file so that any area can be shown
+ * without a network connection.
+ *
+ * <p>The file is a header (magic, format version, fetch time, dataset version, deprecation flags,
+ * sources), then an index of the non-empty {@link TileGrid} tiles sorted by id, each with the
+ * offset and count of its locations, and finally the locations themselves grouped by tile.
+ * A query maps only the tiles it needs, so the dataset is never held in memory as a whole.
+ * Locations are encoded as in {@link ArcadeDiskCache}.
+ *
+ * <p>Methods that perform disk I/O must be called from a background thread.
+ */
+final class OfflinePack {
+    private static final String TAG = "OfflinePack";
+
+    private static final int MAGIC = 0x4444524f; // "DDRO"
+    private static final int FORMAT_VERSION = 1;
+    /** Offset of the fetch time, which is rewritten when the server reports no changes */
+    private static final int FETCHED_AT_OFFSET = 8;
+
+    private static final String FILE_EXTENSION = ".pack";
+
+    private final File file;
+    private final long size;
+    private final long fetchedAt;
+    private final long dataVersion;
+    @NonNull
+    private final Deprecations deprecations;
+    @NonNull
+    private final List<DataSource> sources;
+    /** Tile index: ids in ascending order, with the offset and count of each tile's locations */
+    @NonNull
+    private final int[] tileIds;
+    @NonNull
+    private final int[] offsets;
+    @NonNull
+    private final int[] counts;
+    @NonNull
+    private final ByteBuffer buffer;
+
+    private OfflinePack(@NonNull File file, long size, long fetchedAt, long dataVersion,
+                        @NonNull Deprecations deprecations, @NonNull List<DataSource> sources,
+                        @NonNull int[] tileIds, @NonNull int[] offsets, @NonNull int[] counts,
+                        @NonNull ByteBuffer buffer) {
+        this.file = file;
+        this.size = size;
+        this.fetchedAt = fetchedAt;
+        this.dataVersion = dataVersion;
+        this.deprecations = deprecations;
+        this.sources = sources;
+        this.tileIds = tileIds;
+        this.offsets = offsets;
+        this.counts = counts;
+        this.buffer = buffer;
+    }
+
+    /**
+     * The pack file of the given data source, in the given directory.
+     */
+    @NonNull
+    static File fileFor(@NonNull File directory, @NonNull String dataSrc) {
+        return new File(directory, dataSrc + FILE_EXTENSION);
+    }
+
+    /**
+     * The data source of the given pack file, or null if it is not a pack file.
+     */
+    @Nullable
+    private static String dataSrcOf(@NonNull File file) {
+        final String name = file.getName();
+        if (!name.endsWith(FILE_EXTENSION)) return null;
+        return name.substring(0, name.length() - FILE_EXTENSION.length());
+    }
+
+    /**
+     * Write the given complete result as a pack file, replacing any previous one only once the
+     * new one is complete.
+     */
+    @WorkerThread
+    static void write(@NonNull File file, @NonNull ApiResult result) throws IOException {
+        // Group the locations by tile
+        final List<ArcadeLocation> locations = new ArrayList<>(result.getLocations());
+        final int[] locationTiles = new int[locations.size()];
+        final Integer[] order = new Integer[locations.size()];
+        for (int i = 0; i < locations.size(); ++i) {
+            locationTiles[i] = TileGrid.tileOf(locations.get(i).getPosition());
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(locationTiles[a], locationTiles[b]));
+
+        final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        final DataOutputStream recordsOut = new DataOutputStream(records);
+        final List<int[]> index = new ArrayList<>();
+        for (int i = 0; i < order.length; ++i) {
+            final int tile = locationTiles[order[i]];
+            if (index.isEmpty() || index.get(index.size() - 1)[0] != tile) {
+                index.add(new int[] { tile, recordsOut.size(), 0 });
+            }
+            index.get(index.size() - 1)[2]++;
+            ArcadeDiskCache.writeLocation(recordsOut, locations.get(order[i]));
+        }
+        recordsOut.flush();
+
+        final File temp = new File(file.getPath() + ".tmp");
+        final File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create " + directory);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(result.getFetchedAt());
+            out.writeLong(result.getDataVersion());
+            final Deprecations deprecations = result.getDeprecations();
+            out.writeInt(deprecations != null ? deprecations.getGooglePlay() : 0);
+            ArcadeDiskCache.writeSources(out, result.getSources());
+
+            out.writeInt(index.size());
+            for (int[] entry : index) {
+                out.writeInt(entry[0]);
+                out.writeInt(entry[1]);
+                out.writeInt(entry[2]);
+            }
+            records.writeTo(out);
+        }
+        if (!temp.renameTo(file)) throw new IOException("Failed to replace " + file);
+        Log.d(TAG, "Wrote " + locations.size() + " locations in " + index.size() + " tiles");
+    }
+
+    /**
+     * Open the given pack file.
+     * @return The pack, or null if the file does not exist or is not in the current format
+     */
+    @WorkerThread
+    @Nullable
+    static OfflinePack open(@NonNull File file) {
+        if (!file.exists()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            final MappedByteBuffer in =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 8 || in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                Log.w(TAG, "Discarding pack file with unknown format");
+                delete(file);
+                return null;
+            }
+            final long fetchedAt = in.getLong();
+            final long dataVersion = in.getLong();
+            final Deprecations deprecations = new Deprecations(in.getInt());
+            final List<DataSource> sources = ArcadeDiskCache.readSources(in);
+
+            final int tileCount = ArcadeDiskCache.readCount(in);
+            final int[] tileIds = new int[tileCount];
+            final int[] offsets = new int[tileCount];
+            final int[] counts = new int[tileCount];
+            for (int i = 0; i < tileCount; ++i) {
+                tileIds[i] = in.getInt();
+                offsets[i] = in.getInt();
+                counts[i] = in.getInt();
+            }
+            return new OfflinePack(file, channel.size(), fetchedAt, dataVersion, deprecations, sources,
+                    tileIds, offsets, counts, in.slice());
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Log.e(TAG, "Failed to open pack file", e);
+            delete(file);
+            return null;
+        }
+    }
+
+    /**
+     * Open all pack files in the given directory.
+     * @return The packs, per data source short name
+     */
+    @WorkerThread
+    @NonNull
+    static Map<String, OfflinePack> openAll(@NonNull File directory) {
+        final Map<String, OfflinePack> packs = new HashMap<>();
+        final File[] files = directory.listFiles();
+        if (files == null) return packs;
+        for (File file : files) {
+            final String dataSrc = dataSrcOf(file);
+            if (dataSrc == null) continue;
+            final OfflinePack pack = open(file);
+            if (pack != null) packs.put(dataSrc, pack);
+        }
+        return packs;
+    }
+
+    /**
+     * Record that the server reported no changes since the pack was fetched.
+     */
+    @WorkerThread
+    static void touch(@NonNull File file, long fetchedAt) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(FETCHED_AT_OFFSET);
+            raf.writeLong(fetchedAt);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to update pack file", e);
+        }
+    }
+
+    @WorkerThread
+    static void delete(@NonNull File file) {
+        if (file.exists() && !file.delete()) Log.w(TAG, "Failed to delete " + file);
+    }
+
+    /**
+     * Read the locations within the whole tiles of the given box.
+     * @return A result for the box, ready to be added to an {@link ArcadeStore}
+     */
+    @WorkerThread
+    @NonNull
+    ApiResult query(@NonNull LatLngBounds box) {
+        final List<ArcadeLocation> locations = new ArrayList<>();
+        final ByteBuffer in = buffer.duplicate();
+        for (int tile : TileGrid.tilesIn(box)) {
+            final int i = Arrays.binarySearch(tileIds, tile);
+            if (i < 0) continue;
+            in.position(offsets[i]);
+            for (int j = 0; j < counts[i]; ++j) locations.add(ArcadeDiskCache.readLocation(in));
+        }
+
+        final ApiResult result = new ApiResult(new ArrayList<>(sources), locations,
+                deprecations, box);
+        result.setFetchedAt(fetchedAt);
+        result.setDataVersion(dataVersion);
+        return result;
+    }
+
+    long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    @NonNull
+    Deprecations getDeprecations() {
+        return deprecations;
+    }
+
+    int getLocationCount() {
+        int total = 0;
+        for (int count : counts) total += count;
+        return total;
+    }
+
+    /** Size of the pack file, in bytes */
+    long getSize() {
+        return size;
+    }
+}
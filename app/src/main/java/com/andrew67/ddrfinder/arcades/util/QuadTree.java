@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Region quadtree of non-negative int items, e.g. table rows, at latitude/longitude points.
+ * Each leaf holds its points in parallel primitive arrays, so items are neither boxed nor
+ * wrapped in an entry object, and range queries only visit the nodes that intersect the
+ * queried box. Leaves split past {@link #MAX_ENTRIES} points and merge back together once
+ * removals leave them sparse.
+ * Not thread-safe.
+ */
+final class QuadTree {
+    /** Points a leaf may hold before it is split into four children */
+    private static final int MAX_ENTRIES = 16;
+    /** Limits the depth for many points at identical coordinates; ~0.0007 degrees per leaf */
+    private static final int MAX_DEPTH = 18;
+
+    private final Node root = new Node(-90, -180, 90, 180, 0);
+
+    /**
+     * Insert the given item at the given coordinates.
+     * @return false if the item was already present at the same point
+     */
+    boolean insert(double latitude, double longitude, int item) {
+        return root.insert(latitude, longitude, item);
+    }
+
+    /**
+     * Remove the given item from the given coordinates.
+     * @return whether the item was found
+     */
+    boolean remove(double latitude, double longitude, int item) {
+        return root.remove(latitude, longitude, item);
+    }
+
+    /**
+     * Set the bits of all items within the given box (edges inclusive) in the given set.
+     * Handles boxes that cross the antimeridian.
+     */
+    void query(@NonNull LatLngBounds box, @NonNull BitSet out) {
+        final double south = box.southwest.latitude;
+        final double west = box.southwest.longitude;
+        final double north = box.northeast.latitude;
+        final double east = box.northeast.longitude;
+        if (west <= east) {
+            root.query(south, west, north, east, out);
+        } else {
+            root.query(south, west, north, 180, out);
+            root.query(south, -180, north, east, out);
+        }
+    }
+
+    private static final class Node {
+        final double south, west, north, east;
+        final int depth;
+        /** Points of a leaf, in the first {@link #count} elements; null once split */
+        double[] lats = new double[MAX_ENTRIES + 1];
+        double[] lngs = new double[MAX_ENTRIES + 1];
+        int[] items = new int[MAX_ENTRIES + 1];
+        /** Points held by this node and its descendants */
+        int count = 0;
+        Node[] children = null;
+
+        Node(double south, double west, double north, double east, int depth) {
+            this.south = south;
+            this.west = west;
+            this.north = north;
+            this.east = east;
+            this.depth = depth;
+        }
+
+        boolean insert(double latitude, double longitude, int item) {
+            if (children != null) {
+                if (!child(latitude, longitude).insert(latitude, longitude, item)) return false;
+                count++;
+                return true;
+            }
+
+            if (indexOf(latitude, longitude, item) >= 0) return false;
+            if (count == items.length) {
+                lats = Arrays.copyOf(lats, count * 2);
+                lngs = Arrays.copyOf(lngs, count * 2);
+                items = Arrays.copyOf(items, count * 2);
+            }
+            lats[count] = latitude;
+            lngs[count] = longitude;
+            items[count] = item;
+            count++;
+            if (count > MAX_ENTRIES && depth < MAX_DEPTH) split();
+            return true;
+        }
+
+        /**
+         * Remove the given point from this subtree, merging children back into this node
+         * once they hold few enough points that the split is no longer worth keeping.
+         */
+        boolean remove(double latitude, double longitude, int item) {
+            if (children != null) {
+                if (!child(latitude, longitude).remove(latitude, longitude, item)) return false;
+                if (--count <= MAX_ENTRIES) merge();
+                return true;
+            }
+
+            final int index = indexOf(latitude, longitude, item);
+            if (index < 0) return false;
+            count--;
+            lats[index] = lats[count];
+            lngs[index] = lngs[count];
+            items[index] = items[count];
+            return true;
+        }
+
+        void query(double south, double west, double north, double east, BitSet out) {
+            if (this.south > north || this.north < south || this.west > east || this.east < west)
+                return;
+            if (children != null) {
+                for (Node child : children) child.query(south, west, north, east, out);
+                return;
+            }
+            for (int i = 0; i < count; ++i) {
+                if (lats[i] >= south && lats[i] <= north && lngs[i] >= west && lngs[i] <= east)
+                    out.set(items[i]);
+            }
+        }
+
+        private int indexOf(double latitude, double longitude, int item) {
+            for (int i = 0; i < count; ++i) {
+                if (items[i] == item && lats[i] == latitude && lngs[i] == longitude) return i;
+            }
+            return -1;
+        }
+
+        /** Returns the child whose quadrant holds the given point */
+        private Node child(double latitude, double longitude) {
+            final int row = latitude < (south + north) / 2 ? 0 : 1;
+            final int col = longitude < (west + east) / 2 ? 0 : 1;
+            return children[row * 2 + col];
+        }
+
+        private void split() {
+            final double midLat = (south + north) / 2;
+            final double midLng = (west + east) / 2;
+            children = new Node[] {
+                    new Node(south, west, midLat, midLng, depth + 1),
+                    new Node(south, midLng, midLat, east, depth + 1),
+                    new Node(midLat, west, north, midLng, depth + 1),
+                    new Node(midLat, midLng, north, east, depth + 1),
+            };
+            for (int i = 0; i < count; ++i) {
+                final Node child = child(lats[i], lngs[i]);
+                child.lats[child.count] = lats[i];
+                child.lngs[child.count] = lngs[i];
+                child.items[child.count] = items[i];
+                child.count++;
+            }
+            lats = null;
+            lngs = null;
+            items = null;
+            // Identical points all land in one child, which may need splitting in turn
+            for (Node child : children) {
+                if (child.count > MAX_ENTRIES && child.depth < MAX_DEPTH) child.split();
+            }
+        }
+
+        private void merge() {
+            lats = new double[MAX_ENTRIES + 1];
+            lngs = new double[MAX_ENTRIES + 1];
+            items = new int[MAX_ENTRIES + 1];
+            final Node[] merged = children;
+            children = null;
+            count = 0;
+            for (Node child : merged) child.moveTo(this);
+        }
+
+        /** Append the points of this subtree to the given leaf */
+        private void moveTo(Node leaf) {
+            if (children != null) {
+                for (Node child : children) child.moveTo(leaf);
+                return;
+            }
+            System.arraycopy(lats, 0, leaf.lats, leaf.count, count);
+            System.arraycopy(lngs, 0, leaf.lngs, leaf.count, count);
+            System.arraycopy(items, 0, leaf.items, leaf.count, count);
+            leaf.count += count;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reference-counted table of distinct strings, addressed by index.
+ * Text repeated across arcades (the source, chain names, cities) is then held once however many
+ * arcades and results it appears in, and is dropped once the last arcade using it is removed.
+ * Not thread-safe.
+ */
+final class StringTable {
+    /** Index standing for a null string */
+    static final int NULL = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private final Map<String, Integer> indices = new HashMap<>();
+    private String[] strings = new String[MIN_CAPACITY];
+    private int[] references = new int[MIN_CAPACITY];
+    /** Indices freed and not yet re-used */
+    private int[] freeIndices = new int[MIN_CAPACITY];
+    private int freeCount = 0;
+    /** Indices ever allocated */
+    private int indexLimit = 0;
+
+    /**
+     * Add a reference to the given string.
+     * @return The index of the canonical copy of the string, or {@link #NULL}
+     */
+    int intern(@Nullable String string) {
+        if (string == null) return NULL;
+        final Integer existing = indices.get(string);
+        if (existing != null) {
+            references[existing]++;
+            return existing;
+        }
+
+        final int index;
+        if (freeCount > 0) {
+            index = freeIndices[--freeCount];
+        } else {
+            index = indexLimit++;
+            if (index == strings.length) {
+                strings = Arrays.copyOf(strings, index * 2);
+                references = Arrays.copyOf(references, index * 2);
+            }
+        }
+        strings[index] = string;
+        references[index] = 1;
+        indices.put(string, index);
+        return index;
+    }
+
+    /**
+     * Returns the string at the given index, which must hold a reference.
+     */
+    @Nullable
+    String get(int index) {
+        return (index == NULL) ? null : strings[index];
+    }
+
+    /**
+     * Drop a reference to the string at the given index, freeing it once unreferenced.
+     */
+    void release(int index) {
+        if (index == NULL) return;
+        if (--references[index] > 0) return;
+        indices.remove(strings[index]);
+        strings[index] = null;
+        if (freeCount == freeIndices.length) {
+            freeIndices = Arrays.copyOf(freeIndices, freeCount * 2);
+        }
+        freeIndices[freeCount++] = index;
+    }
+
+    /**
+     * Whether the string at the given index equals the given string.
+     */
+    boolean equals(int index, @Nullable String string) {
+        if (index == NULL) return string == null;
+        return strings[index].equals(string);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One bit per {@link TileGrid} tile, answering whether a box is fully covered by set tiles.
+ * Coverage is tested a 64-tile word at a time, so the cost depends on the number of rows
+ * in the box rather than the number of tiles, and the whole world fits in 8KB.
+ * Not thread-safe.
+ */
+final class TileBitmap {
+    private static final int WORDS_PER_ROW = (TileGrid.COLUMNS + 63) / 64;
+
+    private final long[] words = new long[TileGrid.ROWS * WORDS_PER_ROW];
+
+    boolean get(int tileId) {
+        return (words[wordIndex(tileId)] & bit(tileId)) != 0;
+    }
+
+    void set(int tileId) {
+        words[wordIndex(tileId)] |= bit(tileId);
+    }
+
+    void clear(int tileId) {
+        words[wordIndex(tileId)] &= ~bit(tileId);
+    }
+
+    /**
+     * Whether every tile that overlaps the given box is set.
+     */
+    boolean isCovered(@NonNull LatLngBounds box) {
+        final int westColumn = TileGrid.westColumn(box);
+        final int eastColumn = TileGrid.eastColumn(box);
+        for (int row = TileGrid.southRow(box); row <= TileGrid.northRow(box); ++row) {
+            if (TileGrid.crossesAntimeridian(box)) {
+                if (!allSet(row, westColumn, TileGrid.COLUMNS - 1) || !allSet(row, 0, eastColumn))
+                    return false;
+            } else {
+                if (!allSet(row, westColumn, eastColumn)) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the tiles that overlap the given box but are not set, in row-major order.
+     */
+    @NonNull
+    List<Integer> getMissing(@NonNull LatLngBounds box) {
+        final List<Integer> missing = new ArrayList<>();
+        final int westColumn = TileGrid.westColumn(box);
+        final int eastColumn = TileGrid.eastColumn(box);
+        for (int row = TileGrid.southRow(box); row <= TileGrid.northRow(box); ++row) {
+            if (TileGrid.crossesAntimeridian(box)) {
+                addUnset(row, westColumn, TileGrid.COLUMNS - 1, missing);
+                addUnset(row, 0, eastColumn, missing);
+            } else {
+                addUnset(row, westColumn, eastColumn, missing);
+            }
+        }
+        return missing;
+    }
+
+    private boolean allSet(int row, int fromColumn, int toColumn) {
+        final int base = row * WORDS_PER_ROW;
+        for (int w = fromColumn >> 6; w <= toColumn >> 6; ++w) {
+            final long mask = mask(w, fromColumn, toColumn);
+            if ((words[base + w] & mask) != mask) return false;
+        }
+        return true;
+    }
+
+    private void addUnset(int row, int fromColumn, int toColumn, List<Integer> out) {
+        final int base = row * WORDS_PER_ROW;
+        for (int w = fromColumn >> 6; w <= toColumn >> 6; ++w) {
+            long unset = ~words[base + w] & mask(w, fromColumn, toColumn);
+            while (unset != 0) {
+                out.add(TileGrid.tileId(row, (w << 6) + Long.numberOfTrailingZeros(unset)));
+                unset &= unset - 1;
+            }
+        }
+    }
+
+    /** Bits of word w (within a row) that fall between the given columns, inclusive */
+    private static long mask(int w, int fromColumn, int toColumn) {
+        final int from = Math.max(fromColumn - (w << 6), 0);
+        final int to = Math.min(toColumn - (w << 6), 63);
+        final long upTo = (to == 63) ? -1L : (1L << (to + 1)) - 1;
+        return upTo & (-1L << from);
+    }
+
+    private static int wordIndex(int tileId) {
+        return TileGrid.rowOf(tileId) * WORDS_PER_ROW + (TileGrid.columnOf(tileId) >> 6);
+    }
+
+    private static long bit(int tileId) {
+        return 1L << (TileGrid.columnOf(tileId) & 63);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Divides the world into a fixed grid of 1°×1° tiles, which are the unit of caching and fetching.
+ * Tiles are identified by an int: row * {@link #COLUMNS} + column, where row 0 starts at -90°
+ * latitude and column 0 starts at -180° longitude. Each tile covers [south, south + 1) and
+ * [west, west + 1), so every point belongs to exactly one tile.
+ *
+ * <p>Fetching whole tiles serves two purposes:
+ * - when zoomed in, provides a smoother pan/zoom experience with reduced loading time
+ * - sets the precision to a minimum of 43.5km (see: https://en.wikipedia.org/wiki/Decimal_degrees)
+ *   which provides privacy to the user (especially if the bounds include their location)
+ */
+final class TileGrid {
+    static final int ROWS = 180;
+    static final int COLUMNS = 360;
+    /**
+     * Easternmost longitude of the last column. LatLng wraps 180 around to -180, which would turn
+     * a box ending there into one that crosses the antimeridian.
+     */
+    static final double MAX_LONGITUDE = 179.999999;
+
+    private TileGrid() { }
+
+    static int tileId(int row, int column) {
+        return row * COLUMNS + column;
+    }
+
+    static int rowOf(int tileId) {
+        return tileId / COLUMNS;
+    }
+
+    static int columnOf(int tileId) {
+        return tileId % COLUMNS;
+    }
+
+    /** Returns the id of the tile the given point belongs to */
+    static int tileOf(@NonNull LatLng point) {
+        return tileOf(point.latitude, point.longitude);
+    }
+
+    /** Returns the id of the tile the given coordinates belong to */
+    static int tileOf(double latitude, double longitude) {
+        return tileId(lowerRow(latitude), lowerColumn(longitude));
+    }
+
+    /**
+     * Returns the ids of every tile that overlaps the given box, in row-major order.
+     * Edges that fall exactly on a tile boundary do not pull in the neighbouring tile.
+     * Handles boxes that cross the antimeridian.
+     */
+    @NonNull
+    static List<Integer> tilesIn(@NonNull LatLngBounds box) {
+        final List<Integer> tiles = new ArrayList<>();
+        forEachTileIn(box, tiles::add);
+        return tiles;
+    }
+
+    /**
+     * Pass the id of every tile that overlaps the given box to the given action, in the same
+     * order as {@link #tilesIn(LatLngBounds)} but without boxing them into a list.
+     */
+    static void forEachTileIn(@NonNull LatLngBounds box, @NonNull IntConsumer action) {
+        final int southRow = southRow(box);
+        final int northRow = northRow(box);
+        final int westColumn = westColumn(box);
+        final int eastColumn = eastColumn(box);
+
+        for (int row = southRow; row <= northRow; ++row) {
+            if (!crossesAntimeridian(box)) {
+                for (int column = westColumn; column <= eastColumn; ++column)
+                    action.accept(tileId(row, column));
+            } else {
+                // Crosses the antimeridian
+                for (int column = westColumn; column < COLUMNS; ++column)
+                    action.accept(tileId(row, column));
+                for (int column = 0; column <= eastColumn; ++column)
+                    action.accept(tileId(row, column));
+            }
+        }
+    }
+
+    /** Returns the number of tiles that overlap the given box, without listing them */
+    static int tileCount(@NonNull LatLngBounds box) {
+        int columns = eastColumn(box) - westColumn(box) + 1;
+        if (crossesAntimeridian(box)) columns += COLUMNS;
+        return (northRow(box) - southRow(box) + 1) * columns;
+    }
+
+    // Tile rows and columns overlapped by a box, inclusive.
+    // When the box crosses the antimeridian, its columns wrap around from west to east.
+
+    static int southRow(@NonNull LatLngBounds box) {
+        return lowerRow(box.southwest.latitude);
+    }
+
+    static int northRow(@NonNull LatLngBounds box) {
+        return Math.max(southRow(box), upperRow(box.northeast.latitude));
+    }
+
+    static int westColumn(@NonNull LatLngBounds box) {
+        return lowerColumn(box.southwest.longitude);
+    }
+
+    static int eastColumn(@NonNull LatLngBounds box) {
+        final int eastColumn = upperColumn(box.northeast.longitude);
+        return crossesAntimeridian(box) ? eastColumn : Math.max(westColumn(box), eastColumn);
+    }
+
+    static boolean crossesAntimeridian(@NonNull LatLngBounds box) {
+        return box.southwest.longitude > box.northeast.longitude;
+    }
+
+    /** Returns the bounds of the given tile */
+    @NonNull
+    static LatLngBounds boundsOf(int tileId) {
+        return boundsOf(rowOf(tileId), columnOf(tileId), rowOf(tileId), columnOf(tileId));
+    }
+
+    /** Returns the bounds of the rectangle of tiles between the given rows and columns */
+    @NonNull
+    static LatLngBounds boundsOf(int southRow, int westColumn, int northRow, int eastColumn) {
+        return new LatLngBounds(
+                new LatLng(southRow - 90, westColumn - 180),
+                new LatLng(northRow + 1 - 90, Math.min(eastColumn + 1 - 180, MAX_LONGITUDE)));
+    }
+
+    /**
+     * Merges the given tiles into as few rectangular boxes as the greedy approach allows:
+     * consecutive tiles in a row form a run, and identical runs in consecutive rows are stacked.
+     * A thin strip of missing tiles therefore becomes a single box.
+     */
+    @NonNull
+    static List<LatLngBounds> toBoxes(@NonNull Collection<Integer> tileIds) {
+        final int[] sorted = new int[tileIds.size()];
+        int n = 0;
+        for (int tileId : tileIds) sorted[n++] = tileId;
+        Arrays.sort(sorted);
+
+        // Runs as {row, westColumn, eastColumn}, in row-major order
+        final List<int[]> runs = new ArrayList<>();
+        for (int i = 0; i < sorted.length; ) {
+            final int row = rowOf(sorted[i]);
+            final int west = columnOf(sorted[i]);
+            int east = west;
+            int j = i + 1;
+            while (j < sorted.length && east + 1 < COLUMNS &&
+                    sorted[j] == tileId(row, east + 1)) {
+                east++;
+                j++;
+            }
+            runs.add(new int[] { row, west, east });
+            i = j;
+        }
+
+        // Stack runs with the same columns on consecutive rows into rectangles
+        final List<LatLngBounds> boxes = new ArrayList<>();
+        final boolean[] used = new boolean[runs.size()];
+        for (int i = 0; i < runs.size(); ++i) {
+            if (used[i]) continue;
+            final int[] run = runs.get(i);
+            int northRow = run[0];
+            for (int j = i + 1; j < runs.size() && runs.get(j)[0] <= northRow + 1; ++j) {
+                final int[] next = runs.get(j);
+                if (!used[j] && next[0] == northRow + 1 && next[1] == run[1] && next[2] == run[2]) {
+                    used[j] = true;
+                    northRow++;
+                }
+            }
+            boxes.add(boundsOf(run[0], run[1], northRow, run[2]));
+        }
+        return boxes;
+    }
+
+    private static int lowerRow(double latitude) {
+        return clamp((int) Math.floor(latitude) + 90, ROWS);
+    }
+
+    private static int upperRow(double latitude) {
+        return clamp((int) Math.ceil(latitude) + 90 - 1, ROWS);
+    }
+
+    private static int lowerColumn(double longitude) {
+        return clamp((int) Math.floor(longitude) + 180, COLUMNS);
+    }
+
+    private static int upperColumn(double longitude) {
+        return clamp((int) Math.ceil(longitude) + 180 - 1, COLUMNS);
+    }
+
+    private static int clamp(int index, int count) {
+        return Math.max(0, Math.min(count - 1, index));
+    }
+}
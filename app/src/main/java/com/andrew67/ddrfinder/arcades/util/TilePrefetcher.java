@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.SystemClock;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.CameraPosition;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+/**
+ * Prefetches arcades ahead of the camera while the map is moving, so that panning into new
+ * territory finds its tiles loaded (or at least in flight) by the time the camera stops.
+ * The camera's velocity is smoothed over recent positions and extrapolated a short time ahead;
+ * the predicted visible region is enlarged when the camera is zooming out.
+ * Nothing is prefetched on metered networks, nor when zoomed far out.
+ */
+public final class TilePrefetcher {
+    /** Minimum time between camera samples while it is moving */
+    private static final long SAMPLE_INTERVAL_MILLIS = 200;
+    /** How far ahead the camera position is predicted */
+    private static final double LOOKAHEAD_SECONDS = 1.0;
+    /** Weight of the newest sample in the smoothed velocity */
+    private static final double SMOOTHING = 0.5;
+    /** Movement smaller than this fraction of the visible region is not worth prefetching for */
+    private static final double MIN_MOVEMENT_FRACTION = 0.1;
+    /** Zoomed out further, the visible region spans too many tiles to prefetch around */
+    private static final float MIN_ZOOM = 6;
+
+    private final CachedMapLoader cachedMapLoader = CachedMapLoader.getInstance();
+    @Nullable
+    private final ConnectivityManager connectivityManager;
+
+    // Last camera sample; lastSampleTime is 0 when there is none
+    private long lastSampleTime = 0;
+    private LatLng lastTarget = null;
+    private float lastZoom = 0;
+
+    // Smoothed camera velocity, in degrees and zoom levels per second
+    private double latVelocity = 0;
+    private double lngVelocity = 0;
+    private double zoomVelocity = 0;
+
+    public TilePrefetcher(@NonNull Context context) {
+        connectivityManager = context.getApplicationContext()
+                .getSystemService(ConnectivityManager.class);
+    }
+
+    /**
+     * Call from the map's camera move listener.
+     */
+    @MainThread
+    public void onCameraMove(@NonNull GoogleMap map, @NonNull String dataSrc) {
+        final long now = SystemClock.uptimeMillis();
+        if (lastSampleTime != 0 && now - lastSampleTime < SAMPLE_INTERVAL_MILLIS) return;
+
+        final CameraPosition position = map.getCameraPosition();
+        if (lastSampleTime != 0) {
+            final double seconds = (now - lastSampleTime) / 1000.0;
+            double lngDelta = position.target.longitude - lastTarget.longitude;
+            if (lngDelta > 180) lngDelta -= 360;
+            else if (lngDelta < -180) lngDelta += 360;
+
+            latVelocity = smooth(latVelocity,
+                    (position.target.latitude - lastTarget.latitude) / seconds);
+            lngVelocity = smooth(lngVelocity, lngDelta / seconds);
+            zoomVelocity = smooth(zoomVelocity, (position.zoom - lastZoom) / seconds);
+        }
+        lastSampleTime = now;
+        lastTarget = position.target;
+        lastZoom = position.zoom;
+
+        if (isMetered() || position.zoom < MIN_ZOOM) return;
+        final LatLngBounds predicted =
+                predict(map.getProjection().getVisibleRegion().latLngBounds);
+        if (predicted != null) cachedMapLoader.prefetch(predicted, dataSrc);
+    }
+
+    /**
+     * Call from the map's camera idle listener, so that the next movement starts afresh.
+     */
+    @MainThread
+    public void onCameraIdle() {
+        lastSampleTime = 0;
+        latVelocity = 0;
+        lngVelocity = 0;
+        zoomVelocity = 0;
+    }
+
+    /**
+     * Returns where the given visible region is predicted to be after the lookahead time,
+     * or null if the camera is not moving enough for it to matter
+     */
+    @Nullable
+    private LatLngBounds predict(@NonNull LatLngBounds visible) {
+        final double latSpan = visible.northeast.latitude - visible.southwest.latitude;
+        double lngSpan = visible.northeast.longitude - visible.southwest.longitude;
+        if (lngSpan < 0) lngSpan += 360;
+
+        final double latShift = latVelocity * LOOKAHEAD_SECONDS;
+        final double lngShift = lngVelocity * LOOKAHEAD_SECONDS;
+        // Zooming in only shrinks the visible region, which is loaded once the camera stops
+        final double scale = (zoomVelocity < 0) ?
+                Math.pow(2, -zoomVelocity * LOOKAHEAD_SECONDS) : 1;
+        if (Math.abs(latShift) < latSpan * MIN_MOVEMENT_FRACTION &&
+                Math.abs(lngShift) < lngSpan * MIN_MOVEMENT_FRACTION &&
+                scale < 1 + MIN_MOVEMENT_FRACTION) return null;
+
+        final LatLng center = visible.getCenter();
+        final double centerLat = center.latitude + latShift;
+        final double centerLng = center.longitude + lngShift;
+        final double halfLat = latSpan * scale / 2;
+        // Wider than half the world is far more than worth prefetching anyway
+        final double halfLng = Math.min(lngSpan * scale / 2, 90);
+
+        // LatLng wraps longitudes around the antimeridian
+        return new LatLngBounds(
+                new LatLng(Math.max(-90, centerLat - halfLat), centerLng - halfLng),
+                new LatLng(Math.min(90, centerLat + halfLat), centerLng + halfLng));
+    }
+
+    private boolean isMetered() {
+        return connectivityManager == null || connectivityManager.isActiveNetworkMetered();
+    }
+
+    private static double smooth(double previous, double sample) {
+        return previous + SMOOTHING * (sample - previous);
+    }
+}
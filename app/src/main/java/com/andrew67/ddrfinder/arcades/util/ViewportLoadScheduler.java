@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Schedules the loading of the visible region as the camera comes to rest. Bursts of camera idle
+ * events (e.g. a fling followed by small adjustments, or chained camera animations) are
+ * coalesced into a single load of the latest viewport:
+ * <ul>
+ *     <li>a load waits until no idle event has come in for the debounce window,</li>
+ *     <li>but never longer than the maximum delay after the first event it answers,</li>
+ *     <li>and never sooner than the minimum interval after the previous load.</li>
+ * </ul>
+ * The load itself reads the viewport when it runs, so it always covers where the camera ended up.
+ */
+public final class ViewportLoadScheduler {
+    private static final String TAG = "ViewportLoadScheduler";
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 150;
+    public static final long DEFAULT_MIN_INTERVAL_MILLIS = 500;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 1000;
+
+    private final Runnable load;
+    private final long debounceMillis;
+    private final long minIntervalMillis;
+    private final long maxDelayMillis;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable fire = this::fire;
+
+    /** Time of the first event the pending load answers; 0 when no load is pending */
+    private long firstPendingTime = 0;
+    /** Time of the previous load; 0 when there has been none */
+    private long lastLoadTime = 0;
+
+    // Statistics
+    private int eventCount = 0;
+    private int loadCount = 0;
+    private long totalDelayMillis = 0;
+
+    public ViewportLoadScheduler(@NonNull Runnable load) {
+        this(load, DEFAULT_DEBOUNCE_MILLIS, DEFAULT_MIN_INTERVAL_MILLIS, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * @param load Loads the current viewport; run on the main thread
+     * @param debounceMillis How long the camera must stay idle before loading
+     * @param minIntervalMillis Minimum time between the starts of consecutive loads
+     * @param maxDelayMillis Maximum time from an event to the load answering it, unless the
+     *                       minimum interval requires a longer one
+     */
+    public ViewportLoadScheduler(@NonNull Runnable load, long debounceMillis,
+                                 long minIntervalMillis, long maxDelayMillis) {
+        this.load = load;
+        this.debounceMillis = debounceMillis;
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Call from the map's camera idle listener.
+     */
+    @MainThread
+    public void onCameraIdle() {
+        final long now = SystemClock.uptimeMillis();
+        eventCount++;
+        if (firstPendingTime == 0) firstPendingTime = now;
+
+        long loadTime = Math.min(now + debounceMillis, firstPendingTime + maxDelayMillis);
+        if (lastLoadTime != 0) loadTime = Math.max(loadTime, lastLoadTime + minIntervalMillis);
+        handler.removeCallbacks(fire);
+        handler.postAtTime(fire, loadTime);
+    }
+
+    /**
+     * Drop the pending load, if any; e.g. when the viewport is about to be loaded directly,
+     * or the map is going away.
+     */
+    @MainThread
+    public void cancel() {
+        handler.removeCallbacks(fire);
+        firstPendingTime = 0;
+    }
+
+    /**
+     * Call whenever the viewport is actually loaded, including loads made directly instead of
+     * through this scheduler (e.g. a forced reload), so that the minimum interval counts from it.
+     */
+    @MainThread
+    public void onLoad() {
+        lastLoadTime = SystemClock.uptimeMillis();
+    }
+
+    private void fire() {
+        final long now = SystemClock.uptimeMillis();
+        totalDelayMillis += now - firstPendingTime;
+        firstPendingTime = 0;
+        loadCount++;
+        load.run();
+        if (loadCount % 10 == 0) Log.d(TAG, getStats().toString());
+    }
+
+    /**
+     * Returns a snapshot of the scheduling statistics, for diagnostics.
+     */
+    @NonNull
+    public Stats getStats() {
+        return new Stats(eventCount, loadCount,
+                loadCount == 0 ? 0 : totalDelayMillis / loadCount);
+    }
+
+    /**
+     * Scheduling statistics: camera idle events received, loads run for them, and the average
+     * time from the first event a load answered to the load starting.
+     */
+    public static final class Stats {
+        public final int events;
+        public final int loads;
+        public final long averageDelayMillis;
+
+        Stats(int events, int loads, long averageDelayMillis) {
+            this.events = events;
+            this.loads = loads;
+            this.averageDelayMillis = averageDelayMillis;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "events=%d loads=%d coalesced=%d delay=%dms",
+                    events, loads, events - loads, averageDelayMillis);
+        }
+    }
+}
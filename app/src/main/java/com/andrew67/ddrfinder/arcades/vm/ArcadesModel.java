@@ -29,6 +29,7 @@ import androidx.lifecycle.SingleLiveEvent;
 import androidx.lifecycle.SnackbarMessage;
 import androidx.lifecycle.ViewModel;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import android.util.Log;
 
 import com.andrew67.ddrfinder.arcades.model.ApiResult;
@@ -39,7 +40,6 @@ import com.andrew67.ddrfinder.arcades.util.CachedMapLoader;
 import com.andrew67.ddrfinder.arcades.util.MapLoaderCallback;
 import com.google.android.gms.maps.model.LatLngBounds;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -61,6 +61,7 @@ public class ArcadesModel extends ViewModel {
     private final SnackbarMessage errorMessage = new SnackbarMessage();
 
     private final CachedMapLoader cachedMapLoader = CachedMapLoader.getInstance();
+    private LatLngBounds requestedBounds = null;
 
     /** Get the arcade locations to show on the current map */
     public LiveData<List<ArcadeLocation>> getArcadeLocations() {
@@ -96,7 +97,25 @@ public class ArcadesModel extends ViewModel {
                                  @NonNull String dataSrc,
                                  boolean hasDDROnly,
                                  boolean force) {
-        cachedMapLoader.requestLocations(bounds, dataSrc, force, new MapLoaderCallback() {
+        requestedBounds = bounds;
+        cachedMapLoader.requestLocations(bounds, dataSrc, hasDDROnly, force, newCallback());
+    }
+
+    /**
+     * Returns the bounds of the latest request, e.g. to be saved with the instance state and
+     * requested again after process death, or null if none has been made.
+     */
+    @Nullable
+    public LatLngBounds getRequestedBounds() {
+        return requestedBounds;
+    }
+
+    /**
+     * Creates a callback that updates the various data fields as locations load.
+     */
+    @NonNull
+    private MapLoaderCallback newCallback() {
+        return new MapLoaderCallback() {
             @Override
             public void onPreLoad() {
                 inProgress.setValue(true);
@@ -104,16 +123,8 @@ public class ArcadesModel extends ViewModel {
 
             @Override
             public void onLocationsLoaded(@NonNull ApiResult result) {
-                List<ArcadeLocation> locations = result.getLocations();
-                if (hasDDROnly) {
-                    locations = new ArrayList<>();
-                    for (ArcadeLocation location : result.getLocations()) {
-                        if (location.hasDDR()) locations.add(location);
-                    }
-                    Log.d("ArcadesModel", "DDR filter enabled; filtered " +
-                            (result.getLocations().size() - locations.size()) + " locations");
-                }
-                arcadeLocations.setValue(locations);
+                // Already filtered to DDR only by the loader, if requested
+                arcadeLocations.setValue(result.getLocations());
 
                 dataSources.clear();
                 for (DataSource src : result.getSources()) dataSources.put(src.getShortName(), src);
@@ -131,7 +142,7 @@ public class ArcadesModel extends ViewModel {
             public void onFinish() {
                 inProgress.setValue(false);
             }
-        });
+        };
     }
 
     /**
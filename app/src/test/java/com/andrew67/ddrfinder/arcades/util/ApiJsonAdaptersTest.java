@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.DataSource;
+import com.andrew67.ddrfinder.arcades.model.Deprecations;
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ApiJsonAdaptersTest {
+    @Test
+    public void locationRoundTrip() throws IOException {
+        final ArcadeLocation location = new ArcadeLocation(42, "ziv", "1234", "Round1 \"Shibuya\"",
+                "Tōkyō", 35.659, 139.7, true);
+        final JsonAdapter<ArcadeLocation> adapter = ApiJsonAdapters.newLocationAdapter();
+        final ArcadeLocation read = adapter.fromJson(adapter.toJson(location));
+
+        assertEquals(42, read.getId());
+        assertEquals("ziv", read.getSrc());
+        assertEquals("1234", read.getSid());
+        assertEquals("Round1 \"Shibuya\"", read.getName());
+        assertEquals("Tōkyō", read.getCity());
+        assertEquals(35.659, read.getPosition().latitude, 0);
+        assertEquals(139.7, read.getPosition().longitude, 0);
+        assertTrue(read.hasDDR());
+
+        final ArcadeLocation nulls = new ArcadeLocation(1, null, null, null, null, 0, 0, false);
+        final ArcadeLocation readNulls = adapter.fromJson(adapter.toJson(nulls));
+        assertNull(readNulls.getSrc());
+        assertNull(readNulls.getName());
+        assertFalse(readNulls.hasDDR());
+        assertNull(adapter.fromJson("null"));
+    }
+
+    @Test
+    public void sharedLocationTextIsDeduplicated() throws IOException {
+        final JsonAdapter<ArcadeLocation> adapter = ApiJsonAdapters.newLocationAdapter();
+        final ArcadeLocation first = adapter.fromJson(
+                "{\"id\":1,\"src\":\"ziv\",\"sid\":\"1\",\"name\":\"Round1\",\"city\":\"Tokyo\"}");
+        final ArcadeLocation second = adapter.fromJson(
+                "{\"id\":2,\"src\":\"ziv\",\"sid\":\"1\",\"name\":\"Round1\",\"city\":\"Tokyo\"}");
+        assertSame(first.getSrc(), second.getSrc());
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getCity(), second.getCity());
+    }
+
+    @Test
+    public void unknownFieldsAreSkipped() throws IOException {
+        final ArcadeLocation location = ApiJsonAdapters.newLocationAdapter().fromJson(
+                "{\"id\":7,\"extra\":{\"nested\":[1,2]},\"lat\":1.5,\"lng\":-2.5}");
+        assertEquals(7, location.getId());
+        assertEquals(1.5, location.getPosition().latitude, 0);
+        assertEquals(-2.5, location.getPosition().longitude, 0);
+    }
+
+    @Test
+    public void sourceRoundTrip() throws IOException {
+        final DataSource source = new DataSource("ziv", "Zenius -I- vanisher",
+                "https://example.com/${id}", true);
+        final DataSource read = ApiJsonAdapters.SOURCE.fromJson(
+                ApiJsonAdapters.SOURCE.toJson(source));
+        assertEquals("ziv", read.getShortName());
+        assertEquals("Zenius -I- vanisher", read.getName());
+        assertEquals("https://example.com/${id}", read.getInfoURL());
+        assertTrue(read.hasDDR());
+
+        // The desktop info URL is not the one used
+        final DataSource desktop = ApiJsonAdapters.SOURCE.fromJson(
+                "{\"shortName\":\"osm\",\"infoURL\":\"https://example.com\"}");
+        assertNull(desktop.getInfoURL());
+    }
+
+    @Test(expected = JsonDataException.class)
+    public void sourceRequiresShortName() throws IOException {
+        ApiJsonAdapters.SOURCE.fromJson("{\"name\":\"Nameless\"}");
+    }
+
+    @Test
+    public void deprecationsRoundTrip() throws IOException {
+        final Deprecations read = ApiJsonAdapters.DEPRECATIONS.fromJson(
+                ApiJsonAdapters.DEPRECATIONS.toJson(new Deprecations(2)));
+        assertEquals(2, read.getGooglePlay());
+        assertEquals(0, ApiJsonAdapters.DEPRECATIONS.fromJson("{}").getGooglePlay());
+    }
+
+    @Test
+    public void flagsInEveryForm() throws IOException {
+        final JsonReader reader = reader("[true, false, 1, 0, \"1\", \"0\", null]");
+        reader.beginArray();
+        final List<Boolean> expected = Arrays.asList(true, false, true, false, true, false, false);
+        for (boolean flag : expected) assertEquals(flag, ApiJsonAdapters.nextFlag(reader));
+        reader.endArray();
+    }
+
+    @Test
+    public void nullableValues() throws IOException {
+        final JsonReader reader = reader("[null, null, null, [1, 2], 9007199254740993]");
+        reader.beginArray();
+        assertNull(ApiJsonAdapters.nextString(reader));
+        assertNull(ApiJsonAdapters.nextSources(reader));
+        assertNull(ApiJsonAdapters.nextIds(reader));
+        assertEquals(Arrays.asList(1, 2), ApiJsonAdapters.nextIds(reader));
+        assertEquals(Long.valueOf(9007199254740993L), ApiJsonAdapters.nextLong(reader));
+        reader.endArray();
+    }
+
+    private static JsonReader reader(String json) {
+        return JsonReader.of(new Buffer().writeUtf8(json));
+    }
+}
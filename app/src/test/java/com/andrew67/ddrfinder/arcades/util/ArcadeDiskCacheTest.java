@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.DataSource;
+import com.andrew67.ddrfinder.arcades.model.Deprecations;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArcadeDiskCacheTest {
+    /** Two tiles side by side */
+    private static final LatLngBounds PAIR = bounds(0, 0, 1, 2);
+    private static final LatLngBounds EAST = bounds(0, 1, 1, 2);
+    private static final int WEST_TILE = TileGrid.tileOf(0.5, 0.5);
+    private static final int EAST_TILE = TileGrid.tileOf(0.5, 1.5);
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(Files.createTempDirectory("diskcache").toFile(), "arcades.bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        file.getParentFile().delete();
+    }
+
+    @Test
+    public void recordsStayIndexedAfterReading() {
+        final ArcadeDiskCache cache = new ArcadeDiskCache(file);
+        cache.append(result(PAIR, location(1, 0.5, 0.5), location(2, 0.5, 1.5)));
+
+        final ArcadeDiskCache.Index index = new ArcadeDiskCache(file).load();
+        for (int i = 0; i < 2; ++i) {
+            // Read again, e.g. once the tiles were evicted from memory
+            final List<ArcadeDiskCache.Record> records = index.find("ziv", PAIR, tile -> false);
+            assertEquals(1, records.size());
+            final List<ApiResult> results =
+                    ArcadeDiskCache.Index.read(records.get(0), index.tilesOf(records.get(0)));
+            assertEquals(1, results.size());
+            assertEquals(2, results.get(0).getLocations().size());
+            assertEquals(1, results.get(0).getDeprecations().getGooglePlay());
+        }
+    }
+
+    @Test
+    public void loadedTilesAreSkipped() {
+        new ArcadeDiskCache(file).append(result(PAIR, location(1, 0.5, 0.5)));
+        final ArcadeDiskCache.Index index = new ArcadeDiskCache(file).load();
+        assertTrue(index.find("ziv", PAIR, tile -> true).isEmpty());
+        assertEquals(1, index.find("ziv", PAIR, tile -> tile == WEST_TILE).size());
+        assertTrue(index.find("osm", PAIR, tile -> false).isEmpty());
+    }
+
+    @Test
+    public void newerRecordsReplaceTiles() {
+        final ArcadeDiskCache cache = new ArcadeDiskCache(file);
+        cache.append(result(PAIR, location(1, 0.5, 0.5), location(2, 0.5, 1.5)));
+        cache.append(result(EAST, location(3, 0.5, 1.6)));
+
+        final ArcadeDiskCache.Index index = new ArcadeDiskCache(file).load();
+        final List<ArcadeDiskCache.Record> records = index.find("ziv", PAIR, tile -> false);
+        assertEquals(2, records.size());
+
+        // Only the west tile of the older record is still its newest
+        final Set<Integer> olderTiles = index.tilesOf(records.get(0));
+        assertEquals(Collections.singleton(WEST_TILE), olderTiles);
+        final List<ApiResult> older = ArcadeDiskCache.Index.read(records.get(0), olderTiles);
+        assertEquals(1, older.size());
+        assertEquals(Collections.singletonList(WEST_TILE),
+                TileGrid.tilesIn(older.get(0).getBounds()));
+        assertEquals(1, older.get(0).getLocations().get(0).getId());
+
+        final List<ApiResult> newer =
+                ArcadeDiskCache.Index.read(records.get(1), index.tilesOf(records.get(1)));
+        assertEquals(3, newer.get(0).getLocations().get(0).getId());
+    }
+
+    @Test
+    public void appendedRecordsCanBeIndexed() {
+        final ArcadeDiskCache cache = new ArcadeDiskCache(file);
+        final ArcadeDiskCache.Index index = cache.load();
+        final ByteBuffer record = cache.append(result(PAIR, location(1, 0.5, 0.5)));
+        assertNotNull(record);
+        index.add(record);
+
+        final List<ArcadeDiskCache.Record> records = index.find("ziv", PAIR, tile -> false);
+        assertEquals(1, records.size());
+        assertEquals(1, ArcadeDiskCache.Index.read(records.get(0), index.tilesOf(records.get(0)))
+                .get(0).getLocations().get(0).getId());
+    }
+
+    @Test
+    public void forgottenTilesAreNotFound() {
+        new ArcadeDiskCache(file).append(result(PAIR, location(1, 0.5, 0.5)));
+        final ArcadeDiskCache.Index index = new ArcadeDiskCache(file).load();
+
+        // Superseded by newer data for the east tile
+        index.forget("ziv", EAST);
+        final ArcadeDiskCache.Record record = index.find("ziv", PAIR, tile -> false).get(0);
+        assertEquals(Collections.singleton(WEST_TILE), index.tilesOf(record));
+        assertTrue(index.find("ziv", EAST, tile -> false).isEmpty());
+
+        index.forget("ziv", record);
+        assertTrue(index.find("ziv", PAIR, tile -> false).isEmpty());
+    }
+
+    @Test
+    public void restoresViewportAfterRestart() {
+        // Two requests answered before the process died
+        final ArcadeDiskCache before = new ArcadeDiskCache(file);
+        before.load();
+        final ApiResult west = result(bounds(0, 0, 1, 1), location(1, 0.5, 0.5));
+        west.setDataVersion(5);
+        before.append(west);
+        before.append(result(EAST, location(2, 0.5, 1.5), location(3, 0.9, 1.9)));
+
+        // A new process requests the saved viewport, which only covers parts of the tiles
+        final LatLngBounds viewport = bounds(0.2, 0.2, 0.8, 1.8);
+        final ArcadeStore store = new ArcadeStore();
+        final ArcadeDiskCache.Index index = new ArcadeDiskCache(file).load();
+        for (ArcadeDiskCache.Record record : index.find("ziv", viewport, store::isTileLoaded)) {
+            for (ApiResult result : ArcadeDiskCache.Index.read(record, index.tilesOf(record))) {
+                store.add(result);
+            }
+        }
+
+        assertTrue(store.isLoaded(viewport));
+        final List<ArcadeLocation> locations = store.getLocations(viewport);
+        final Set<Integer> ids = new HashSet<>();
+        for (ArcadeLocation location : locations) ids.add(location.getId());
+        assertEquals(new HashSet<>(Arrays.asList(1, 2)), ids);
+        // Restored tiles keep their fetch time and version, so they still revalidate
+        assertEquals(2, store.getStaleTiles(viewport, 2000).size());
+        assertEquals(5, store.getDataVersion(bounds(0, 0, 1, 1)));
+    }
+
+    @Test
+    public void splitKeepsOnlyTheGivenTiles() {
+        final ApiResult result = result(PAIR, location(1, 0.5, 0.5), location(2, 0.5, 1.5));
+        final List<ApiResult> parts =
+                ArcadeDiskCache.Index.split(result, Collections.singletonList(EAST_TILE));
+        assertEquals(1, parts.size());
+        assertEquals(Collections.singletonList(EAST_TILE),
+                TileGrid.tilesIn(parts.get(0).getBounds()));
+        assertEquals(1, parts.get(0).getLocations().size());
+        assertEquals(2, parts.get(0).getLocations().get(0).getId());
+        assertEquals("ziv", parts.get(0).getDataSrc());
+    }
+
+    private static ApiResult result(LatLngBounds bounds, ArcadeLocation... locations) {
+        final ApiResult result = new ApiResult(
+                Collections.singletonList(new DataSource("ziv", "Zenius", null, true)),
+                Arrays.asList(locations), new Deprecations(1), bounds);
+        result.setDataSrc("ziv");
+        result.setFetchedAt(1000);
+        return result;
+    }
+
+    private static ArcadeLocation location(int id, double lat, double lng) {
+        return new ArcadeLocation(id, "ziv", "s" + id, "Arcade " + id, "City", lat, lng, true);
+    }
+
+    private static LatLngBounds bounds(double south, double west, double north, double east) {
+        return new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+    }
+}
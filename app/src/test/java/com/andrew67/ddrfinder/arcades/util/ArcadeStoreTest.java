@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ArcadeStoreTest {
+    private static final int ARCADES = 20000;
+    private static final LatLngBounds BOX = new LatLngBounds(new LatLng(0, 0), new LatLng(4, 4));
+
+    @Test
+    public void reloadsAndQueriesManyArcades() {
+        final Random random = new Random(1);
+        final List<ArcadeLocation> locations = new ArrayList<>(ARCADES);
+        for (int id = 0; id < ARCADES; ++id) {
+            locations.add(new ArcadeLocation(id, "ziv", "s" + id, "Arcade " + id, "City",
+                    random.nextDouble() * 3.99, random.nextDouble() * 3.99, id % 4 == 0));
+        }
+        final ApiResult result = new ApiResult(Collections.emptyList(), locations, null, BOX);
+
+        final ArcadeStore store = new ArcadeStore();
+        assertTrue(store.add(result));
+        // Reloading the same arcades reports no change
+        assertFalse(store.add(result));
+        assertEquals(ARCADES, store.getLocationCount());
+
+        assertEquals(ARCADES, store.getLocations(BOX).size());
+        final List<ArcadeLocation> withDDR = store.getLocations(BOX, true);
+        assertEquals(ARCADES / 4, withDDR.size());
+        for (ArcadeLocation location : withDDR) assertEquals(0, location.getId() % 4);
+        assertEquals(0, store.getLocations(bounds(5, 5, 6, 6)).size());
+    }
+
+    @Test
+    public void viewsReadBackEveryField() {
+        final ArcadeStore store = new ArcadeStore();
+        store.add(result(bounds(35, 139, 36, 140), new ArcadeLocation(
+                12, "ziv", "1234", "Round1", "Tōkyō", 35.659, 139.7, true)));
+        store.add(result(bounds(0, 0, 1, 1), new ArcadeLocation(
+                -3, "osm", null, "Arcade", null, 0.5, 0.25, false)));
+
+        final ArcadeLocation first = store.getLocations(bounds(35, 139, 36, 140)).get(0);
+        assertEquals(12, first.getId());
+        assertEquals("ziv", first.getSrc());
+        assertEquals("1234", first.getSid());
+        assertEquals("Round1", first.getName());
+        assertEquals("Tōkyō", first.getCity());
+        assertEquals(35.659, first.getPosition().latitude, 1e-6);
+        assertEquals(139.7, first.getPosition().longitude, 1e-6);
+        assertTrue(first.hasDDR());
+
+        final ArcadeLocation second = store.getLocations(bounds(0, 0, 1, 1)).get(0);
+        assertEquals(-3, second.getId());
+        assertEquals("osm", second.getSrc());
+        assertNull(second.getSid());
+        assertNull(second.getCity());
+        assertEquals(0.25, second.getPosition().longitude, 1e-6);
+        assertFalse(second.hasDDR());
+    }
+
+    @Test
+    public void reloadingATileReplacesItsArcades() {
+        final ArcadeStore store = new ArcadeStore();
+        final LatLngBounds tile = bounds(0, 0, 1, 1);
+        final LatLngBounds neighbour = bounds(0, 1, 1, 2);
+        store.add(result(tile, location(1, 0.5, 0.5), location(2, 0.6, 0.6)));
+        store.add(result(neighbour, location(3, 0.5, 1.5)));
+
+        assertTrue(store.add(result(tile, location(2, 0.7, 0.7), location(4, 0.2, 0.2))));
+        assertEquals(3, store.getLocationCount());
+        final List<ArcadeLocation> locations = store.getLocations(tile);
+        assertEquals(2, locations.size());
+        for (ArcadeLocation location : locations) {
+            assertTrue(location.getId() == 2 || location.getId() == 4);
+            if (location.getId() == 2) {
+                assertEquals(0.7, location.getPosition().latitude, 1e-6);
+            }
+        }
+        // The neighbouring tile is untouched
+        assertEquals(3, store.getLocations(neighbour).get(0).getId());
+
+        // Emptied tiles stay loaded
+        assertTrue(store.add(result(tile)));
+        assertTrue(store.isLoaded(tile));
+        assertEquals(0, store.getLocations(tile).size());
+        assertEquals(1, store.getLocationCount());
+    }
+
+    @Test
+    public void deltaMovesLocationOutOfItsTiles() {
+        final ArcadeStore store = new ArcadeStore();
+        final LatLngBounds tile = bounds(0, 0, 1, 1);
+        final LatLngBounds neighbour = bounds(0, 1, 1, 2);
+        store.add(result(tile, location(1, 0.5, 0.5), location(2, 0.6, 0.6)));
+        store.add(result(neighbour));
+
+        // Arcade 1 moved into the neighbouring tile, which is not part of the delta
+        final ApiResult delta = new ApiResult(null, null, Collections.emptyList(),
+                Collections.singletonList(location(1, 0.5, 1.5)), null, 2L, true,
+                Collections.emptyList());
+        delta.setBounds(tile);
+        assertTrue(store.applyDelta(delta));
+
+        final List<ArcadeLocation> locations = store.getLocations(tile);
+        assertEquals(1, locations.size());
+        assertEquals(2, locations.get(0).getId());
+        assertEquals(1, store.getLocationCount());
+        assertEquals(2, store.getDataVersion(tile));
+        // The neighbour's own revalidation adds the arcade there
+        assertEquals(0, store.getLocations(neighbour).size());
+    }
+
+    @Test
+    public void queriedTilesAreEvictedLast() {
+        final ArcadeStore store = new ArcadeStore();
+        final LatLngBounds west = TileGrid.boundsOf(TileGrid.tileOf(0.5, 179.5));
+        final LatLngBounds east = TileGrid.boundsOf(TileGrid.tileOf(0.5, -179.5));
+        final LatLngBounds other = bounds(10, 10, 11, 11);
+        store.add(result(west, location(1, 0.5, 179.5)));
+        store.add(result(east, location(2, 0.5, -179.5)));
+        store.add(result(other, location(3, 10.5, 10.5)));
+
+        // Both tiles either side of the antimeridian are touched, leaving the other one oldest
+        assertEquals(2, store.getLocations(bounds(0.2, 179.2, 0.8, -179.2)).size());
+        assertEquals(1, store.evictLeastRecentlyUsed(Collections.emptySet()));
+        assertFalse(store.isLoaded(other));
+        assertTrue(store.isLoaded(west));
+        assertTrue(store.isLoaded(east));
+
+        // A query over unloaded tiles only touches those loaded
+        store.getLocations(bounds(0, 170, 5, 179.5));
+        assertEquals(1, store.evictLeastRecentlyUsed(Collections.emptySet()));
+        assertFalse(store.isLoaded(east));
+        assertTrue(store.isLoaded(west));
+    }
+
+    private static ApiResult result(LatLngBounds bounds, ArcadeLocation... locations) {
+        return new ApiResult(Collections.emptyList(), Arrays.asList(locations), null, bounds);
+    }
+
+    private static ArcadeLocation location(int id, double lat, double lng) {
+        return new ArcadeLocation(id, "ziv", "s" + id, "Arcade " + id, "City", lat, lng, true);
+    }
+
+    private static LatLngBounds bounds(double south, double west, double north, double east) {
+        return new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import androidx.annotation.NonNull;
+
+import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.andrew67.ddrfinder.arcades.model.ArcadeLocation;
+import com.andrew67.ddrfinder.arcades.model.DataSource;
+import com.andrew67.ddrfinder.arcades.model.StringSource;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import okio.Buffer;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinaryApiResultReaderTest {
+    @Test
+    public void readsResult() throws IOException {
+        final Buffer buffer = header(ApiResult.ERROR_OK);
+        strings(buffer, "ziv", "Round1", "Tōkyō", "Shibuya", "12345");
+        varint(buffer, 0); // error
+        varint(buffer, 1); // deprecation level
+        varint(buffer, 1); // sources
+        varint(buffer, 1);
+        varint(buffer, 0);
+        varint(buffer, 0);
+        buffer.writeByte(1);
+        varint(buffer, 2); // locations
+        location(buffer, 12345, 1, 5, 2, 3, 35_659_000, 139_700_000, true);
+        location(buffer, -12345 - 3, 1, 0, 4, 0, -1_000_000, -139_700_000 * 2, false);
+
+        final List<List<ArcadeLocation>> chunks = new ArrayList<>();
+        final ApiResult result = BinaryApiResultReader.read(buffer, 1, chunks::add);
+        assertTrue(buffer.exhausted());
+
+        assertEquals(ApiResult.ERROR_OK, result.getErrorCode());
+        assertEquals(1, result.getDeprecations().getGooglePlay());
+        assertEquals(1, result.getSources().size());
+        final DataSource source = result.getSources().get(0);
+        assertEquals("ziv", source.getShortName());
+        assertNull(source.getName());
+        assertTrue(source.hasDDR());
+
+        final List<ArcadeLocation> locations = result.getLocations();
+        assertEquals(2, locations.size());
+        assertEquals(2, chunks.size());
+        assertSame(locations.get(0), chunks.get(0).get(0));
+
+        final ArcadeLocation first = locations.get(0);
+        assertEquals(12345, first.getId());
+        assertEquals("ziv", first.getSrc());
+        assertEquals("12345", first.getSid());
+        assertEquals("Round1", first.getName());
+        assertEquals("Tōkyō", first.getCity());
+        assertEquals(35.659, first.getPosition().latitude, 1e-9);
+        assertEquals(139.7, first.getPosition().longitude, 1e-9);
+        assertTrue(first.hasDDR());
+
+        // Ids and coordinates are differences from the previous location
+        final ArcadeLocation second = locations.get(1);
+        assertEquals(-3, second.getId());
+        assertNull(second.getSid());
+        assertEquals("Shibuya", second.getName());
+        assertNull(second.getCity());
+        assertEquals(34.659, second.getPosition().latitude, 1e-9);
+        assertEquals(-139.7, second.getPosition().longitude, 1e-9);
+        assertFalse(second.hasDDR());
+    }
+
+    @Test
+    public void readsErrorResult() throws IOException {
+        final Buffer buffer = header(ApiResult.ERROR_OVERSIZED_BOX);
+        strings(buffer, "Box too large");
+        varint(buffer, 1);
+        varint(buffer, 0);
+        varint(buffer, 0);
+        varint(buffer, 0);
+
+        final ApiResult result = BinaryApiResultReader.read(buffer, 200, chunk -> fail());
+        assertEquals(ApiResult.ERROR_OVERSIZED_BOX, result.getErrorCode());
+        assertTrue(result.getLocations().isEmpty());
+    }
+
+    @Test
+    public void readsLongVarints() throws IOException {
+        // Ids far apart take several varint bytes either way
+        final Buffer buffer = emptyResultWithLocations(2);
+        location(buffer, Integer.MAX_VALUE, 0, 0, 0, 0, 90_000_000, 180_000_000, false);
+        location(buffer, (long) Integer.MIN_VALUE - Integer.MAX_VALUE, 0, 0, 0, 0,
+                -180_000_000, -360_000_000, false);
+
+        final List<ArcadeLocation> locations =
+                BinaryApiResultReader.read(buffer, 200, chunk -> { }).getLocations();
+        assertEquals(Integer.MAX_VALUE, locations.get(0).getId());
+        assertEquals(Integer.MIN_VALUE, locations.get(1).getId());
+        assertEquals(-90, locations.get(1).getPosition().latitude, 1e-9);
+        assertEquals(-180, locations.get(1).getPosition().longitude, 1e-9);
+    }
+
+    @Test
+    public void comparesTextByReference() throws IOException {
+        final Buffer buffer = header(ApiResult.ERROR_OK);
+        strings(buffer, "Round1", "Round1", "Round2");
+        varint(buffer, 0);
+        varint(buffer, 0);
+        varint(buffer, 0);
+        varint(buffer, 3);
+        location(buffer, 1, 0, 0, 1, 0, 0, 0, false);
+        location(buffer, 1, 0, 0, 2, 0, 0, 0, false);
+        location(buffer, 1, 0, 0, 3, 0, 0, 0, false);
+
+        final List<ArcadeLocation> locations =
+                BinaryApiResultReader.read(buffer, 200, chunk -> { }).getLocations();
+        final StringSource strings = locations.get(0).getStringSource();
+        final int first = locations.get(0).getNameReference();
+        assertTrue(strings.equals(first, strings, locations.get(1).getNameReference()));
+        assertFalse(strings.equals(first, strings, locations.get(2).getNameReference()));
+        assertFalse(strings.equals(first, strings, StringSource.NULL));
+        assertTrue(strings.equals(StringSource.NULL, strings, StringSource.NULL));
+    }
+
+    @Test
+    public void deliversChunksBeforeTheBodyEnds() {
+        // Claims many more locations than have arrived when the connection drops
+        final Buffer arrived = emptyResultWithLocations(100_000);
+        location(arrived, 1, 0, 0, 0, 0, 0, 0, false);
+        location(arrived, 1, 0, 0, 0, 0, 0, 0, false);
+        final Source connection = new Source() {
+            @Override
+            public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                if (arrived.exhausted()) throw new IOException("Connection reset");
+                return arrived.read(sink, byteCount);
+            }
+
+            @NonNull
+            @Override
+            public Timeout timeout() {
+                return Timeout.NONE;
+            }
+
+            @Override
+            public void close() { }
+        };
+
+        final List<List<ArcadeLocation>> chunks = new ArrayList<>();
+        try {
+            BinaryApiResultReader.read(Okio.buffer(connection), 1, chunks::add);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals("Connection reset", e.getMessage());
+        }
+        assertEquals(2, chunks.size());
+        assertEquals(2, chunks.get(1).get(0).getId());
+    }
+
+    @Test
+    public void rejectsBadInput() {
+        // Not a binary result
+        assertFails(new Buffer().writeUtf8("{\"locations\":[]}"));
+
+        // Unknown version
+        final Buffer version = new Buffer();
+        version.writeInt(0x44445242);
+        version.writeByte(2);
+        assertFails(version);
+
+        // String reference out of range
+        final Buffer reference = header(ApiResult.ERROR_OK);
+        strings(reference, "ziv");
+        varint(reference, 2);
+        assertFails(reference);
+
+        // More strings than there are bytes, caught before allocating for them
+        final Buffer count = header(ApiResult.ERROR_OK);
+        varint(count, 1_000_000);
+        assertFails(count);
+
+        // More locations than there are bytes, without allocating for all of them
+        final Buffer locations = emptyResultWithLocations(1_000_000);
+        location(locations, 1, 0, 0, 0, 0, 0, 0, false);
+        assertFails(locations);
+
+        // Truncated string
+        final Buffer truncated = header(ApiResult.ERROR_OK);
+        varint(truncated, 1);
+        varint(truncated, 10);
+        truncated.writeUtf8("abc");
+        assertFails(truncated);
+
+        // Varint past 64 bits
+        final Buffer varint = new Buffer();
+        varint.writeInt(0x44445242);
+        varint.writeByte(1);
+        for (int i = 0; i < 10; ++i) varint.writeByte(0x80);
+        assertFails(varint);
+    }
+
+    private static void assertFails(Buffer buffer) {
+        try {
+            BinaryApiResultReader.read(buffer, 200, chunk -> { });
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    private static Buffer header(int errorCode) {
+        final Buffer buffer = new Buffer();
+        buffer.writeInt(0x44445242); // "DDRB"
+        buffer.writeByte(1);
+        signedVarint(buffer, errorCode);
+        return buffer;
+    }
+
+    private static Buffer emptyResultWithLocations(int locationCount) {
+        final Buffer buffer = header(ApiResult.ERROR_OK);
+        strings(buffer);
+        varint(buffer, 0);
+        varint(buffer, 0);
+        varint(buffer, 0);
+        varint(buffer, locationCount);
+        return buffer;
+    }
+
+    private static void strings(Buffer buffer, String... strings) {
+        varint(buffer, strings.length);
+        for (String string : strings) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            varint(buffer, bytes.length);
+            buffer.write(bytes);
+        }
+    }
+
+    /** Writes a location record; ids and coordinates as differences from the previous one */
+    private static void location(Buffer buffer, long idDelta, int src, int sid, int name, int city,
+                                 long latDelta, long lngDelta, boolean hasDDR) {
+        signedVarint(buffer, idDelta);
+        varint(buffer, src);
+        varint(buffer, sid);
+        varint(buffer, name);
+        varint(buffer, city);
+        signedVarint(buffer, latDelta);
+        signedVarint(buffer, lngDelta);
+        buffer.writeByte(hasDDR ? 1 : 0);
+    }
+
+    private static void signedVarint(Buffer buffer, long value) {
+        varint(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    private static void varint(Buffer buffer, long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.writeByte((int) value);
+    }
+}
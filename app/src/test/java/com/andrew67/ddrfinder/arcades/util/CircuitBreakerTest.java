@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+    private static final int THRESHOLD = 3;
+    private static final long BASE_COOLDOWN = 1000;
+    private static final long MAX_COOLDOWN = 3000;
+
+    private long now;
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        breaker = new CircuitBreaker(THRESHOLD, BASE_COOLDOWN, MAX_COOLDOWN, () -> now);
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        for (int i = 0; i < THRESHOLD - 1; ++i) {
+            assertTrue(breaker.allowRequest());
+            breaker.onFailure();
+        }
+        assertFalse(breaker.isOpen());
+
+        // A success in between starts the count over
+        assertTrue(breaker.allowRequest());
+        breaker.onSuccess();
+        for (int i = 0; i < THRESHOLD - 1; ++i) breaker.onFailure();
+        assertFalse(breaker.isOpen());
+
+        breaker.onFailure();
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+    }
+
+    @Test
+    public void halfOpenLetsOneTrialThrough() {
+        openByFailures();
+        now += BASE_COOLDOWN;
+        assertFalse(breaker.isOpen());
+
+        assertTrue(breaker.allowRequest());
+        // Only the trial, until it reports back
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+
+        breaker.onSuccess();
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void failedTrialReopensWithLongerCooldown() {
+        openByFailures();
+        now += BASE_COOLDOWN;
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertTrue(breaker.isOpen());
+
+        // Doubled from the base cooldown
+        now += BASE_COOLDOWN * 2 - 1;
+        assertFalse(breaker.allowRequest());
+        now += 1;
+        assertTrue(breaker.allowRequest());
+
+        // Then capped
+        breaker.onFailure();
+        now += MAX_COOLDOWN - 1;
+        assertTrue(breaker.isOpen());
+        now += 1;
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void trialThatNeverReportsBackTimesOut() {
+        openByFailures();
+        now += BASE_COOLDOWN;
+        assertTrue(breaker.allowRequest());
+        now += BASE_COOLDOWN - 1;
+        assertFalse(breaker.allowRequest());
+        now += 1;
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    public void openForHoldsOffUntilTheLatestDeadline() {
+        breaker.openFor(5000);
+        // A shorter hold does not cut the current one short
+        breaker.openFor(100);
+        now += 4999;
+        assertTrue(breaker.isOpen());
+        now += 1;
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+    }
+
+    private void openByFailures() {
+        for (int i = 0; i < THRESHOLD; ++i) breaker.onFailure();
+        assertTrue(breaker.isOpen());
+    }
+}
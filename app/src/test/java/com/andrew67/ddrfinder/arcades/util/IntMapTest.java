@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class IntMapTest {
+    @Test
+    public void putGetRemove() {
+        final IntMap map = new IntMap();
+        assertEquals(IntMap.NONE, map.get(1));
+        assertEquals(IntMap.NONE, map.put(1, 10));
+        assertEquals(IntMap.NONE, map.put(-5, 0));
+        assertEquals(10, map.put(1, 11));
+        assertEquals(11, map.get(1));
+        assertEquals(0, map.get(-5));
+
+        assertEquals(11, map.remove(1));
+        assertEquals(IntMap.NONE, map.remove(1));
+        assertEquals(IntMap.NONE, map.get(1));
+        assertEquals(0, map.get(-5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeValues() {
+        new IntMap().put(1, IntMap.NONE);
+    }
+
+    @Test
+    public void removeKeepsTheRestReachable() {
+        // Up to half full, the table is not resized, so entries share probe sequences;
+        // each removal must shift later entries back into the gap it leaves
+        for (int size = 2; size <= 8; ++size) {
+            for (int removed = 0; removed < size; ++removed) {
+                final IntMap map = new IntMap();
+                for (int key = 0; key < size; ++key) map.put(key * 7919, key);
+                assertEquals(removed, map.remove(removed * 7919));
+                for (int key = 0; key < size; ++key) {
+                    assertEquals(key == removed ? IntMap.NONE : key, map.get(key * 7919));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchesHashMapThroughResizesAndRemovals() {
+        final Random random = new Random(1);
+        final IntMap map = new IntMap();
+        final Map<Integer, Integer> expected = new HashMap<>();
+        // A small key range, so that puts, removals and lookups keep hitting the same clusters
+        for (int i = 0; i < 200000; ++i) {
+            final int key = random.nextInt(5000) - 2500;
+            final int value = random.nextInt(Integer.MAX_VALUE);
+            final int op = random.nextInt(3);
+            if (op == 0) {
+                assertEquals((int) expected.getOrDefault(key, IntMap.NONE), map.put(key, value));
+                expected.put(key, value);
+            } else if (op == 1) {
+                final Integer previous = expected.remove(key);
+                assertEquals(previous != null ? previous : IntMap.NONE, map.remove(key));
+            } else {
+                assertEquals((int) expected.getOrDefault(key, IntMap.NONE), map.get(key));
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
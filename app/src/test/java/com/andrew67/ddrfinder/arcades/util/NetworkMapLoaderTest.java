@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import com.andrew67.ddrfinder.arcades.model.ApiResult;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the loader against a local server standing in for the API, one load at a time on the
+ * test thread. Results are read from the loader, as callbacks need the main thread.
+ */
+public class NetworkMapLoaderTest {
+    private static final LatLngBounds BOX_A = bounds(0, 0, 1, 1);
+    private static final LatLngBounds BOX_B = bounds(10, 10, 11, 12);
+    private static final MapLoaderCallback NO_CALLBACK = new MapLoaderCallback() {
+        @Override
+        public void onPreLoad() { }
+
+        @Override
+        public void onLocationsLoaded(ApiResult result) { }
+
+        @Override
+        public void onError(int errorCode, int errorMessageResourceId) { }
+
+        @Override
+        public void onFinish() { }
+    };
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        NetworkMapLoader.setApiUrl(server.url("/locate.php"));
+        NetworkMapLoader.setBatchSupported(true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+        NetworkMapLoader.setBatchSupported(true);
+    }
+
+    @Test
+    public void readsBinaryResultsWhenOffered() throws Exception {
+        server.enqueue(new MockResponse()
+                .addHeader("Content-Type", BinaryApiResultReader.MEDIA_TYPE)
+                .setBody(binaryResult(7)));
+
+        final NetworkMapLoader loader = new NetworkMapLoader("ziv", NO_CALLBACK, false);
+        loader.load(Collections.singletonList(BOX_A));
+
+        final RecordedRequest request = server.takeRequest();
+        assertEquals(BinaryApiResultReader.MEDIA_TYPE + ", application/json;q=0.9",
+                request.getHeader("Accept"));
+        final List<ApiResult> results = loader.getResults();
+        assertEquals(1, results.size());
+        assertSame(BOX_A, results.get(0).getBounds());
+        assertEquals(7, results.get(0).getLocations().get(0).getId());
+        assertEquals("Arcade 7", results.get(0).getLocations().get(0).getName());
+        assertEquals("ziv", results.get(0).getDataSrc());
+    }
+
+    @Test
+    public void readsJsonResultsOtherwise() throws Exception {
+        // Servers without binary results answer the same request with JSON
+        server.enqueue(json(result(8)));
+
+        final NetworkMapLoader loader = new NetworkMapLoader("ziv", NO_CALLBACK, false);
+        loader.load(Collections.singletonList(BOX_A));
+
+        assertEquals(BinaryApiResultReader.MEDIA_TYPE + ", application/json;q=0.9",
+                server.takeRequest().getHeader("Accept"));
+        final List<ApiResult> results = loader.getResults();
+        assertEquals(1, results.size());
+        assertEquals(8, results.get(0).getLocations().get(0).getId());
+        assertEquals("Arcade 8", results.get(0).getLocations().get(0).getName());
+    }
+
+    @Test
+    public void batchesBoxesIntoOneRequest() throws Exception {
+        server.enqueue(json("{\"results\":[" + result(1) + "," + result(2) + "]}"));
+
+        final NetworkMapLoader loader = new NetworkMapLoader("ziv", NO_CALLBACK, false);
+        loader.load(Arrays.asList(BOX_A, BOX_B));
+
+        assertEquals(1, server.getRequestCount());
+        final RecordedRequest request = server.takeRequest();
+        // Batches are always JSON
+        assertEquals("application/json", request.getHeader("Accept"));
+        final HttpUrl url = request.getRequestUrl();
+        assertNotNull(url.queryParameter("batch"));
+        assertEquals(Arrays.asList("0.0,0.0,1.0,1.0", "10.0,10.0,11.0,12.0"),
+                url.queryParameterValues("box"));
+        assertNull(url.queryParameter("latupper"));
+
+        final List<ApiResult> results = loader.getResults();
+        assertEquals(2, results.size());
+        assertSame(BOX_A, results.get(0).getBounds());
+        assertSame(BOX_B, results.get(1).getBounds());
+        assertEquals(1, results.get(0).getLocations().get(0).getId());
+        assertEquals(2, results.get(1).getLocations().get(0).getId());
+        assertEquals("ziv", results.get(1).getDataSrc());
+    }
+
+    @Test
+    public void fallsBackToSingleBoxesWithoutBatchSupport() throws Exception {
+        // A server without batches finds the single-box parameters missing
+        server.enqueue(json("{\"error\":\"Missing required field\",\"errorCode\":" +
+                ApiResult.ERROR_REQUIRED_FIELD + "}").setResponseCode(400));
+        server.enqueue(json(result(1)));
+        server.enqueue(json(result(2)));
+
+        final NetworkMapLoader loader = new NetworkMapLoader("ziv", NO_CALLBACK, false);
+        loader.load(Arrays.asList(BOX_A, BOX_B));
+
+        assertFalse(NetworkMapLoader.isBatchSupported());
+        assertEquals(3, server.getRequestCount());
+        assertNotNull(server.takeRequest().getRequestUrl().queryParameter("batch"));
+        final HttpUrl first = server.takeRequest().getRequestUrl();
+        assertEquals("1.0", first.queryParameter("latupper"));
+        assertEquals("0.0", first.queryParameter("lnglower"));
+        final HttpUrl second = server.takeRequest().getRequestUrl();
+        assertEquals("12.0", second.queryParameter("lngupper"));
+
+        final List<ApiResult> results = loader.getResults();
+        assertEquals(2, results.size());
+        assertSame(BOX_A, results.get(0).getBounds());
+        assertEquals(2, results.get(1).getLocations().get(0).getId());
+
+        // Later loads go straight to single boxes
+        server.enqueue(json(result(3)));
+        server.enqueue(json(result(4)));
+        new NetworkMapLoader("ziv", NO_CALLBACK, false).load(Arrays.asList(BOX_A, BOX_B));
+        assertNull(server.takeRequest().getRequestUrl().queryParameter("batch"));
+    }
+
+    @Test
+    public void batchErrorAppliesToAllBoxes() throws Exception {
+        server.enqueue(json("{\"error\":\"Box too large\",\"errorCode\":" +
+                ApiResult.ERROR_OVERSIZED_BOX + "}").setResponseCode(400));
+
+        final NetworkMapLoader loader = new NetworkMapLoader("ziv", NO_CALLBACK, false);
+        loader.load(Arrays.asList(BOX_A, BOX_B));
+
+        assertTrue(NetworkMapLoader.isBatchSupported());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, loader.getResults().size());
+        assertEquals(ApiResult.ERROR_OVERSIZED_BOX, loader.getResults().get(0).getErrorCode());
+    }
+
+    @Test
+    public void revalidationStopsAtNotModified() throws Exception {
+        NetworkMapLoader.attachHttpCache(Files.createTempDirectory("http").toFile());
+
+        // Single box: cached first, then confirmed unchanged
+        server.enqueue(json(result(1)).addHeader("ETag", "\"a\""));
+        new NetworkMapLoader("ziv", NO_CALLBACK, false).load(Collections.singletonList(BOX_A));
+        server.takeRequest();
+
+        server.enqueue(new MockResponse().setResponseCode(304));
+        final NetworkMapLoader single = new NetworkMapLoader("ziv", NO_CALLBACK, true);
+        single.load(Collections.singletonList(BOX_A));
+        assertEquals("\"a\"", server.takeRequest().getHeader("If-None-Match"));
+        assertTrue(single.isNotModified());
+        assertTrue(single.getResults().isEmpty());
+
+        // A batch of boxes, revalidated twice at the same data version:
+        // first answered in full, then confirmed unchanged
+        server.enqueue(json("{\"results\":[" + result(1) + "," + result(2) + "]}")
+                .addHeader("ETag", "\"b\""));
+        final NetworkMapLoader changed = new NetworkMapLoader("ziv", NO_CALLBACK, true);
+        changed.setSinceDataVersion(3);
+        changed.load(Arrays.asList(BOX_A, BOX_B));
+        final HttpUrl url = server.takeRequest().getRequestUrl();
+        assertNotNull(url.queryParameter("batch"));
+        assertEquals("3", url.queryParameter("since"));
+        assertFalse(changed.isNotModified());
+        assertEquals(2, changed.getResults().size());
+
+        server.enqueue(new MockResponse().setResponseCode(304));
+        final NetworkMapLoader batch = new NetworkMapLoader("ziv", NO_CALLBACK, true);
+        batch.setSinceDataVersion(3);
+        batch.load(Arrays.asList(BOX_A, BOX_B));
+        assertEquals("\"b\"", server.takeRequest().getHeader("If-None-Match"));
+        assertTrue(batch.isNotModified());
+        assertTrue(batch.getResults().isEmpty());
+    }
+
+    @Test
+    public void notModifiedServesCacheOutsideRevalidation() throws Exception {
+        NetworkMapLoader.attachHttpCache(Files.createTempDirectory("http").toFile());
+        server.enqueue(json(result(1)).addHeader("ETag", "\"c\""));
+        new NetworkMapLoader("ziv", NO_CALLBACK, false).load(Collections.singletonList(BOX_B));
+        server.takeRequest();
+
+        // Without data for the box, the caller needs the cached copy parsed
+        server.enqueue(new MockResponse().setResponseCode(304));
+        final NetworkMapLoader loader = new NetworkMapLoader("ziv", NO_CALLBACK, false);
+        loader.load(Collections.singletonList(BOX_B));
+        assertEquals("\"c\"", server.takeRequest().getHeader("If-None-Match"));
+        assertFalse(loader.isNotModified());
+        assertEquals(1, loader.getResults().size());
+        assertEquals(1, loader.getResults().get(0).getLocations().get(0).getId());
+    }
+
+    @Test
+    public void notModifiedBoxDoesNotStandForOthers() throws Exception {
+        NetworkMapLoader.attachHttpCache(Files.createTempDirectory("http").toFile());
+        NetworkMapLoader.setBatchSupported(false);
+        final LatLngBounds boxC = bounds(20, 20, 21, 21);
+        final LatLngBounds boxD = bounds(30, 30, 31, 31);
+        server.enqueue(json(result(1)).addHeader("ETag", "\"d\""));
+        server.enqueue(json(result(2)).addHeader("ETag", "\"e\""));
+        new NetworkMapLoader("ziv", NO_CALLBACK, false).load(Arrays.asList(boxC, boxD));
+        server.takeRequest();
+        server.takeRequest();
+
+        // One box at a time, each 304 only vouches for its own box, so both are read from cache
+        server.enqueue(new MockResponse().setResponseCode(304));
+        server.enqueue(new MockResponse().setResponseCode(304));
+        final NetworkMapLoader loader = new NetworkMapLoader("ziv", NO_CALLBACK, true);
+        loader.load(Arrays.asList(boxC, boxD));
+        assertEquals(4, server.getRequestCount());
+        assertFalse(loader.isNotModified());
+        assertEquals(2, loader.getResults().size());
+        assertEquals(2, loader.getResults().get(1).getLocations().get(0).getId());
+    }
+
+    @Test
+    public void retriesCutShortResponsesUntilLocationsArePassedOn() throws Exception {
+        // Cut short before any locations were read
+        server.enqueue(json(result(1).substring(0, 60)));
+        final NetworkMapLoader loader = new NetworkMapLoader("ziv", NO_CALLBACK, false);
+        assertEquals("RetryableException",
+                loadFailure(loader, BOX_A).getClass().getSimpleName());
+
+        // A retry reads the response again from the start
+        server.enqueue(json(result(1)));
+        loader.load(Collections.singletonList(BOX_A));
+        assertEquals(1, loader.getResults().size());
+        assertEquals(1, loader.getResults().get(0).getLocations().get(0).getId());
+
+        // Cut short after the first chunk of locations was passed on
+        final StringBuilder body = new StringBuilder("{\"locations\":[");
+        for (int id = 0; id < 250; ++id) {
+            body.append("{\"id\":").append(id).append(",\"src\":\"ziv\",\"name\":\"Arcade\",")
+                    .append("\"lat\":0.5,\"lng\":0.5,\"hasDDR\":1},");
+        }
+        server.enqueue(json(body.toString()));
+        final Exception failure =
+                loadFailure(new NetworkMapLoader("ziv", NO_CALLBACK, false), BOX_B);
+        assertTrue(failure instanceof IOException);
+    }
+
+    private static Exception loadFailure(NetworkMapLoader loader, LatLngBounds box) {
+        try {
+            loader.load(Collections.singletonList(box));
+        } catch (Exception e) {
+            return e;
+        }
+        throw new AssertionError("Load did not fail");
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse()
+                .addHeader("Content-Type", "application/json")
+                .setBody(body);
+    }
+
+    private static String result(int id) {
+        return "{\"sources\":[{\"shortName\":\"ziv\",\"hasDDR\":true}]," +
+                "\"locations\":[{\"id\":" + id + ",\"src\":\"ziv\",\"sid\":\"" + id + "\"," +
+                "\"name\":\"Arcade " + id + "\",\"lat\":0.5,\"lng\":0.5,\"hasDDR\":1}]}";
+    }
+
+    /** The binary form of {@link #result(int)} */
+    private static Buffer binaryResult(int id) {
+        final Buffer buffer = new Buffer();
+        buffer.writeInt(0x44445242); // "DDRB"
+        buffer.writeByte(1);
+        varint(buffer, 0); // error code
+        final String[] strings = { "ziv", "Arcade " + id, "" + id };
+        varint(buffer, strings.length);
+        for (String string : strings) {
+            final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            varint(buffer, bytes.length);
+            buffer.write(bytes);
+        }
+        varint(buffer, 0); // error
+        varint(buffer, 0); // deprecation level
+        varint(buffer, 1); // sources
+        varint(buffer, 1);
+        varint(buffer, 0);
+        varint(buffer, 0);
+        buffer.writeByte(1);
+        varint(buffer, 1); // locations
+        varint(buffer, (long) id << 1);
+        varint(buffer, 1);
+        varint(buffer, 3);
+        varint(buffer, 2);
+        varint(buffer, 0);
+        varint(buffer, 500_000 << 1);
+        varint(buffer, 500_000 << 1);
+        buffer.writeByte(1);
+        return buffer;
+    }
+
+    private static void varint(Buffer buffer, long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.writeByte((int) value);
+    }
+
+    private static LatLngBounds bounds(double south, double west, double north, double east) {
+        return new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QuadTreeTest {
+    private static final int POINTS = 2000;
+
+    @Test
+    public void queryIncludesEdgesOnly() {
+        final QuadTree tree = new QuadTree();
+        assertTrue(tree.insert(10, 20, 0));
+        assertTrue(tree.insert(11, 21, 1));
+        assertTrue(tree.insert(12, 22, 2));
+
+        final BitSet hits = new BitSet();
+        tree.query(bounds(10, 20, 11, 21), hits);
+        assertEquals(bits(0, 1), hits);
+    }
+
+    @Test
+    public void queryAcrossAntimeridian() {
+        final QuadTree tree = new QuadTree();
+        tree.insert(0, 179.5, 0);
+        tree.insert(0, -179.5, 1);
+        tree.insert(0, 0, 2);
+
+        final BitSet hits = new BitSet();
+        tree.query(bounds(-1, 179, 1, -179), hits);
+        assertEquals(bits(0, 1), hits);
+    }
+
+    @Test
+    public void duplicatesAndMissingItems() {
+        final QuadTree tree = new QuadTree();
+        assertTrue(tree.insert(1, 1, 7));
+        assertFalse(tree.insert(1, 1, 7));
+        // Same item elsewhere, or another item at the same point, are distinct entries
+        assertTrue(tree.insert(2, 2, 7));
+        assertTrue(tree.insert(1, 1, 8));
+
+        assertFalse(tree.remove(1, 1, 9));
+        assertFalse(tree.remove(3, 3, 7));
+        assertTrue(tree.remove(1, 1, 7));
+        assertFalse(tree.remove(1, 1, 7));
+    }
+
+    @Test
+    public void manyPointsAtOnePoint() {
+        // More than fit a leaf, at any depth
+        final QuadTree tree = new QuadTree();
+        for (int i = 0; i < 100; ++i) assertTrue(tree.insert(35.6, 139.7, i));
+
+        final BitSet hits = new BitSet();
+        tree.query(bounds(35, 139, 36, 140), hits);
+        assertEquals(100, hits.cardinality());
+
+        for (int i = 0; i < 100; ++i) assertTrue(tree.remove(35.6, 139.7, i));
+        hits.clear();
+        tree.query(bounds(-90, -180, 90, 179.999), hits);
+        assertTrue(hits.isEmpty());
+    }
+
+    @Test
+    public void matchesBruteForceThroughSplitsAndMerges() {
+        final Random random = new Random(1);
+        final double[] lats = new double[POINTS];
+        final double[] lngs = new double[POINTS];
+        final boolean[] present = new boolean[POINTS];
+        final QuadTree tree = new QuadTree();
+        // Clustered, so that leaves split several levels deep
+        for (int i = 0; i < POINTS; ++i) {
+            lats[i] = 40 + random.nextDouble() * 2;
+            lngs[i] = -74 + random.nextDouble() * 2;
+            assertTrue(tree.insert(lats[i], lngs[i], i));
+            present[i] = true;
+        }
+        checkQueries(tree, lats, lngs, present, random);
+
+        // Down to sparse, so that leaves merge back
+        for (int i = 0; i < POINTS; ++i) {
+            if (i % 10 == 0) continue;
+            assertTrue(tree.remove(lats[i], lngs[i], i));
+            present[i] = false;
+        }
+        checkQueries(tree, lats, lngs, present, random);
+
+        // And back up again
+        for (int i = 0; i < POINTS; i += 3) {
+            if (present[i]) continue;
+            assertTrue(tree.insert(lats[i], lngs[i], i));
+            present[i] = true;
+        }
+        checkQueries(tree, lats, lngs, present, random);
+    }
+
+    private static void checkQueries(QuadTree tree, double[] lats, double[] lngs,
+                                     boolean[] present, Random random) {
+        final BitSet hits = new BitSet();
+        for (int q = 0; q < 200; ++q) {
+            final double south = 39.5 + random.nextDouble() * 3;
+            final double west = -74.5 + random.nextDouble() * 3;
+            final LatLngBounds box = bounds(south, west,
+                    south + random.nextDouble(), west + random.nextDouble());
+
+            final BitSet expected = new BitSet();
+            for (int i = 0; i < lats.length; ++i) {
+                if (present[i] && box.contains(new LatLng(lats[i], lngs[i]))) expected.set(i);
+            }
+            hits.clear();
+            tree.query(box, hits);
+            assertEquals(expected, hits);
+        }
+    }
+
+    private static LatLngBounds bounds(double south, double west, double north, double east) {
+        return new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+    }
+
+    private static BitSet bits(int... indices) {
+        final BitSet bits = new BitSet();
+        for (int index : indices) bits.set(index);
+        return bits;
+    }
+}
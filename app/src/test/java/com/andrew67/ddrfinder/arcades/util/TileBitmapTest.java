@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TileBitmapTest {
+    @Test
+    public void setGetClear() {
+        final TileBitmap bitmap = new TileBitmap();
+        final int tile = TileGrid.tileId(100, 63);
+        assertFalse(bitmap.get(tile));
+        bitmap.set(tile);
+        assertTrue(bitmap.get(tile));
+        // Neighbours in the same and the next word are unaffected
+        assertFalse(bitmap.get(TileGrid.tileId(100, 62)));
+        assertFalse(bitmap.get(TileGrid.tileId(100, 64)));
+        bitmap.clear(tile);
+        assertFalse(bitmap.get(tile));
+    }
+
+    @Test
+    public void coverageAcrossWordBoundaries() {
+        // Columns 60 to 130 span three 64-bit words of the row
+        final TileBitmap bitmap = new TileBitmap();
+        final LatLngBounds box = bounds(10.5, 60 - 180 + 0.5, 11.5, 130 - 180 + 0.5);
+        setAll(bitmap, box);
+        assertTrue(bitmap.isCovered(box));
+        assertTrue(bitmap.getMissing(box).isEmpty());
+
+        for (int column : new int[] { 60, 63, 64, 127, 128, 130 }) {
+            final int tile = TileGrid.tileId(101, column);
+            bitmap.clear(tile);
+            assertFalse(bitmap.isCovered(box));
+            assertEquals(Collections.singletonList(tile), bitmap.getMissing(box));
+            bitmap.set(tile);
+        }
+
+        // Tiles just outside the box do not count
+        assertFalse(bitmap.get(TileGrid.tileId(101, 59)));
+        assertFalse(bitmap.get(TileGrid.tileId(101, 131)));
+        assertTrue(bitmap.isCovered(box));
+    }
+
+    @Test
+    public void coverageOfTheLastColumns() {
+        // The last word of a row is only partly used, as 360 columns are not a multiple of 64
+        final TileBitmap bitmap = new TileBitmap();
+        final LatLngBounds box = bounds(0.5, 175.5, 0.7, 179.9);
+        assertEquals(Arrays.asList(TileGrid.tileId(90, 355), TileGrid.tileId(90, 356),
+                TileGrid.tileId(90, 357), TileGrid.tileId(90, 358), TileGrid.tileId(90, 359)),
+                bitmap.getMissing(box));
+        setAll(bitmap, box);
+        assertTrue(bitmap.isCovered(box));
+    }
+
+    @Test
+    public void coverageAcrossAntimeridian() {
+        final TileBitmap bitmap = new TileBitmap();
+        final LatLngBounds box = bounds(-0.5, 178.5, -0.2, -178.5);
+        assertEquals(Arrays.asList(TileGrid.tileId(89, 358), TileGrid.tileId(89, 359),
+                TileGrid.tileId(89, 0), TileGrid.tileId(89, 1)), bitmap.getMissing(box));
+
+        bitmap.set(TileGrid.tileId(89, 358));
+        bitmap.set(TileGrid.tileId(89, 359));
+        bitmap.set(TileGrid.tileId(89, 0));
+        assertFalse(bitmap.isCovered(box));
+        assertEquals(Collections.singletonList(TileGrid.tileId(89, 1)), bitmap.getMissing(box));
+        bitmap.set(TileGrid.tileId(89, 1));
+        assertTrue(bitmap.isCovered(box));
+    }
+
+    private static void setAll(TileBitmap bitmap, LatLngBounds box) {
+        for (int tile : TileGrid.tilesIn(box)) bitmap.set(tile);
+    }
+
+    private static LatLngBounds bounds(double south, double west, double north, double east) {
+        return new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 Andrés Cordero
+ * Web: https://github.com/Andrew67/DdrFinder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.andrew67.ddrfinder.arcades.util;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TileGridTest {
+    @Test
+    public void tileOfAndBoundsOf() {
+        final int tile = TileGrid.tileOf(35.6, 139.7);
+        assertEquals(TileGrid.tileId(125, 319), tile);
+        final LatLngBounds bounds = TileGrid.boundsOf(tile);
+        assertEquals(35, bounds.southwest.latitude, 0);
+        assertEquals(139, bounds.southwest.longitude, 0);
+        assertEquals(36, bounds.northeast.latitude, 0);
+        assertEquals(140, bounds.northeast.longitude, 0);
+        // A tile's own bounds do not pull in its neighbours
+        assertEquals(Collections.singletonList(tile), TileGrid.tilesIn(bounds));
+    }
+
+    @Test
+    public void lastColumnRoundTrip() {
+        // A box ending at 180 would wrap around to -180 and pull in column 0
+        final int tile = TileGrid.tileId(90, 359);
+        final LatLngBounds bounds = TileGrid.boundsOf(tile);
+        assertFalse(TileGrid.crossesAntimeridian(bounds));
+        assertEquals(Collections.singletonList(tile), TileGrid.tilesIn(bounds));
+
+        final List<Integer> tiles = Arrays.asList(TileGrid.tileId(90, 358), tile);
+        final List<LatLngBounds> boxes = TileGrid.toBoxes(tiles);
+        assertEquals(1, boxes.size());
+        assertEquals(tiles, TileGrid.tilesIn(boxes.get(0)));
+    }
+
+    @Test
+    public void tilesInAcrossAntimeridian() {
+        final LatLngBounds box = bounds(-0.5, 179.5, 0.5, -179.5);
+        assertEquals(Arrays.asList(TileGrid.tileId(89, 359), TileGrid.tileId(89, 0),
+                TileGrid.tileId(90, 359), TileGrid.tileId(90, 0)), TileGrid.tilesIn(box));
+    }
+
+    @Test
+    public void tileCountMatchesTilesIn() {
+        for (LatLngBounds box : Arrays.asList(bounds(0.5, 0.5, 0.6, 0.6),
+                bounds(-10.5, 20.2, 3.1, 40), bounds(-0.5, 179.5, 0.5, -179.5),
+                bounds(-90, -180, 90, TileGrid.MAX_LONGITUDE))) {
+            assertEquals(TileGrid.tilesIn(box).size(), TileGrid.tileCount(box));
+        }
+    }
+
+    @Test
+    public void toBoxesMergesRectangle() {
+        final List<Integer> tiles = new ArrayList<>();
+        for (int row = 100; row <= 103; ++row) {
+            for (int column = 200; column <= 205; ++column) tiles.add(TileGrid.tileId(row, column));
+        }
+        Collections.shuffle(tiles, new Random(1));
+
+        final List<LatLngBounds> boxes = TileGrid.toBoxes(tiles);
+        assertEquals(1, boxes.size());
+        assertEquals(new HashSet<>(tiles), new HashSet<>(TileGrid.tilesIn(boxes.get(0))));
+    }
+
+    @Test
+    public void toBoxesSplitsShapes() {
+        // An L: a run of three on one row, and a single tile stacked on its west end
+        final List<Integer> tiles = Arrays.asList(TileGrid.tileId(50, 10),
+                TileGrid.tileId(50, 11), TileGrid.tileId(50, 12), TileGrid.tileId(51, 10));
+        assertEquals(2, TileGrid.toBoxes(tiles).size());
+        checkCovers(tiles);
+
+        // A strip down a column stacks into one box
+        final List<Integer> strip = Arrays.asList(TileGrid.tileId(60, 30),
+                TileGrid.tileId(61, 30), TileGrid.tileId(62, 30));
+        assertEquals(1, TileGrid.toBoxes(strip).size());
+
+        assertTrue(TileGrid.toBoxes(Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    public void toBoxesCoversRandomTilesExactly() {
+        final Random random = new Random(1);
+        for (int n = 0; n < 50; ++n) {
+            final Set<Integer> tiles = new HashSet<>();
+            for (int i = random.nextInt(100); i > 0; --i) {
+                tiles.add(TileGrid.tileId(80 + random.nextInt(10), 100 + random.nextInt(10)));
+            }
+            checkCovers(tiles);
+        }
+    }
+
+    /** Checks that the boxes cover exactly the given tiles, each of them once */
+    private static void checkCovers(Collection<Integer> tiles) {
+        final List<Integer> covered = new ArrayList<>();
+        for (LatLngBounds box : TileGrid.toBoxes(tiles)) covered.addAll(TileGrid.tilesIn(box));
+        assertEquals(new HashSet<>(tiles).size(), covered.size());
+        assertEquals(new HashSet<>(tiles), new HashSet<>(covered));
+    }
+
+    private static LatLngBounds bounds(double south, double west, double north, double east) {
+        return new LatLngBounds(new LatLng(south, west), new LatLng(north, east));
+    }
+}